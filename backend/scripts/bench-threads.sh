@@ -0,0 +1,122 @@
+#!/usr/bin/env bash
+# Platform-thread vs virtual-thread benchmark on the purchase and order-status endpoints.
+#
+# Prerequisites: MySQL / Redis / RabbitMQ running (docker-compose.yml), a member account,
+# `mvn package` already done, and `hey` on PATH (https://github.com/rakyll/hey).
+#
+# Each mode buys from its own freshly created event with STOCK units and no per-member limit, so every
+# purchase goes through the full admission path (Lua deduct, RabbitMQ publish, consumer JDBC insert)
+# instead of the sold-out / member-limit reject path. Keep STOCK above what DURATION can sell.
+#
+# Usage: EMAIL=a@b.c PASSWORD=secret scripts/bench-threads.sh
+# Optional: BASE_URL (http://localhost:8080), DURATION (30s), CONCURRENCY (200), STOCK (10000000), JAVA_OPTS
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+: "${EMAIL:?EMAIL is required}"
+: "${PASSWORD:?PASSWORD is required}"
+BASE_URL=${BASE_URL:-http://localhost:8080}
+DURATION=${DURATION:-30s}
+CONCURRENCY=${CONCURRENCY:-200}
+STOCK=${STOCK:-10000000}
+JAVA_OPTS=${JAVA_OPTS:-}
+
+JAR=$(ls target/*.jar | grep -v plain | head -n 1)
+OUT=target/bench-threads
+mkdir -p "$OUT"
+
+APP_PID=""
+trap '[ -n "$APP_PID" ] && kill "$APP_PID" 2>/dev/null || true' EXIT
+
+wait_for_app() {
+  for _ in $(seq 1 90); do
+    if curl -sf "$BASE_URL/api/test/hello" > /dev/null; then
+      return 0
+    fi
+    sleep 1
+  done
+  echo "Backend did not start, see $OUT" >&2
+  return 1
+}
+
+login_cookie() {
+  local jar="$OUT/cookies.txt"
+  curl -sf -c "$jar" -H 'Content-Type: application/json' \
+    -d "{\"email\":\"$EMAIL\",\"password\":\"$PASSWORD\"}" \
+    "$BASE_URL/api/client/auth/login" > /dev/null
+  # HttpOnly cookies are written as "#HttpOnly_<domain>" lines
+  sed 's/^#HttpOnly_//' "$jar" | awk '!/^#/ && NF == 7 { printf "%s=%s; ", $6, $7 }'
+}
+
+# Admin endpoints are open (SecurityConfig); prints the created id
+admin_post() {
+  local path=$1 body=$2 field=$3
+  curl -sf -H 'Content-Type: application/json' -d "$body" "$BASE_URL$path" \
+    | sed -n "s/.*\"$field\":\"\([^\"]*\)\".*/\1/p"
+}
+
+# Fresh high-stock event without maxPerMember (±12h window, long payment window), preheated into Redis
+create_event() {
+  local label=$1 product start end
+  start=$(date -d '-12 hours' +%FT%T 2>/dev/null || date -v-12H +%FT%T)
+  end=$(date -d '+12 hours' +%FT%T 2>/dev/null || date -v+12H +%FT%T)
+  product=$(admin_post /api/admin/products \
+    "{\"productName\":\"bench-threads $label $(date +%s)\",\"description\":\"thread benchmark\",\"status\":1}" productId)
+  admin_post /api/admin/events \
+    "{\"productId\":\"$product\",\"price\":1,\"stock\":$STOCK,\"startTime\":\"$start\",\"endTime\":\"$end\",\"status\":1,\"paymentWindowMinutes\":1440}" eventId
+}
+
+run_mode() {
+  local label=$1 virtual=$2
+  echo "=== $label (spring.threads.virtual.enabled=$virtual) ==="
+  # shellcheck disable=SC2086
+  java $JAVA_OPTS -jar "$JAR" --spring.threads.virtual.enabled="$virtual" --flashsale.stock.maxPerMember=0 \
+    > "$OUT/app-$label.log" 2>&1 &
+  APP_PID=$!
+  wait_for_app
+
+  local cookie event_id
+  cookie=$(login_cookie)
+  event_id=$(create_event "$label")
+  [ -n "$event_id" ] || { echo "Could not create the benchmark event" >&2; return 1; }
+  curl -sf -X POST "$BASE_URL/api/admin/jobs/preload-today" > /dev/null
+
+  # Warm-up (JIT, connection pools); results discarded
+  hey -z 5s -c "$CONCURRENCY" -H "Cookie: $cookie" \
+    "$BASE_URL/api/client/orders/status?eventId=$event_id" > /dev/null
+
+  # Purchase: stock and limit never run out, every request is a real admission
+  hey -z "$DURATION" -c "$CONCURRENCY" -m POST -T 'application/json' -H "Cookie: $cookie" \
+    -d "{\"eventId\":\"$event_id\",\"quantity\":1}" \
+    "$BASE_URL/api/client/orders" > "$OUT/purchase-$label.txt"
+
+  hey -z "$DURATION" -c "$CONCURRENCY" -H "Cookie: $cookie" \
+    "$BASE_URL/api/client/orders/status?eventId=$event_id" > "$OUT/status-$label.txt"
+
+  kill "$APP_PID"
+  wait "$APP_PID" 2>/dev/null || true
+  APP_PID=""
+}
+
+summary() {
+  local file=$1
+  printf '%-28s %12s %10s %10s %10s\n' "$(basename "$file" .txt)" \
+    "$(awk '/Requests\/sec/ { print $2 }' "$file")" \
+    "$(awk '/ 50% in/ { print $3 }' "$file")" \
+    "$(awk '/ 99% in/ { print $3 }' "$file")" \
+    "$(awk '/\[200\]/ { print $2 }' "$file")"
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo
+# "200 resp" close to the total request count confirms the runs measured admissions, not rejects
+printf '%-28s %12s %10s %10s %10s\n' "run" "req/s" "p50 (s)" "p99 (s)" "200 resp"
+for file in "$OUT"/purchase-*.txt "$OUT"/status-*.txt; do
+  summary "$file"
+done
+echo
+echo "Pinned virtual threads (virtual run):"
+grep -c "Virtual thread pinned" "$OUT/app-virtual.log" || true
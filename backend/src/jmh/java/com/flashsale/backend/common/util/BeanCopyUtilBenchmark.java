@@ -0,0 +1,43 @@
+package com.flashsale.backend.common.util;
+
+import com.flashsale.backend.dto.request.EventRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description BeanCopyUtil.getNullPropertyNames on a partial EventRequest update (what EventService.updateEvent passes)
+ * @author Yang-Hsu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanCopyUtilBenchmark {
+
+    private EventRequest partialUpdate;
+
+    @Setup
+    public void setUp() {
+        partialUpdate = new EventRequest();
+        partialUpdate.setPrice(new BigDecimal("999.00"));
+        partialUpdate.setStock(500);
+    }
+
+    @Benchmark
+    public String[] nullPropertyNames() {
+        return BeanCopyUtil.getNullPropertyNames(partialUpdate);
+    }
+}
@@ -0,0 +1,117 @@
+package com.flashsale.backend.mq.message;
+
+import com.flashsale.backend.entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description ORDER_QUEUE encodings: JSON Order entity (pre-binary converter), JSON record, Java serialization
+ * (Spring AMQP default) and OrderMessageConverter. Encode and decode measured separately; run with -prof gc for B/op.
+ * @author Yang-Hsu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMessageBenchmark {
+
+    private final Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+    private final SimpleMessageConverter serializingConverter = new SimpleMessageConverter();
+    private final OrderMessageConverter binaryConverter = new OrderMessageConverter();
+
+    private Order order;
+    private OrderCreateMessage record;
+
+    private Message jsonOrderMessage;
+    private Message jsonRecordMessage;
+    private Message serializedMessage;
+    private Message binaryMessage;
+
+    @Setup
+    public void setUp() {
+        serializingConverter.setAllowedListPatterns(List.of("com.flashsale.*", "java.*"));
+        order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setMemberId(UUID.randomUUID().toString());
+        order.setProductId(UUID.randomUUID().toString());
+        order.setEventId(UUID.randomUUID().toString());
+        order.setQuantity(2);
+        order.setTotalPrice(new BigDecimal("1998.00"));
+        order.setStatus("PENDING");
+        order.setExpiresAt(LocalDateTime.now().plusMinutes(10));
+        record = OrderCreateMessage.from(order);
+
+        jsonOrderMessage = encodeJsonOrder();
+        jsonRecordMessage = encodeJsonRecord();
+        serializedMessage = encodeSerialized();
+        binaryMessage = encodeBinary();
+    }
+
+    @Benchmark
+    public Message encodeJsonOrder() {
+        return jsonConverter.toMessage(order, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message encodeJsonRecord() {
+        return jsonConverter.toMessage(record, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message encodeSerialized() {
+        return serializingConverter.toMessage(order, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message encodeBinary() {
+        return binaryConverter.toMessage(record, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decodeJsonOrder() {
+        return jsonConverter.fromMessage(jsonOrderMessage);
+    }
+
+    @Benchmark
+    public Object decodeJsonRecord() {
+        return jsonConverter.fromMessage(jsonRecordMessage);
+    }
+
+    @Benchmark
+    public Object decodeSerialized() {
+        return serializingConverter.fromMessage(serializedMessage);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return binaryConverter.fromMessage(binaryMessage);
+    }
+
+    /**
+     * In-flight JSON Order read by the binary converter during a rollout
+     */
+    @Benchmark
+    public Object decodeLegacyJsonViaBinaryConverter() {
+        return binaryConverter.fromMessage(jsonOrderMessage);
+    }
+}
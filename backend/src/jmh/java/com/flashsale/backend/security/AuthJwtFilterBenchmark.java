@@ -0,0 +1,85 @@
+package com.flashsale.backend.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description AuthJwtFilter end to end on an authenticated client path: valid cookie, missing cookie (401 JSON body)
+ * and a path the filter skips. Request / response objects are reused, the chain is a no-op.
+ * @author Yang-Hsu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthJwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private AuthJwtFilter filter;
+    private MockHttpServletRequest authenticated;
+    private MockHttpServletRequest anonymous;
+    private MockHttpServletRequest open;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = JwtBenchmark.newJwtUtils();
+        filter = new AuthJwtFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+
+        String token = jwtUtils.generateAccessToken(UUID.randomUUID().toString(), "bench@flashsale.com", "Bench User");
+        authenticated = new MockHttpServletRequest("GET", "/api/client/orders/status");
+        authenticated.setCookies(new Cookie("access_token", token));
+        anonymous = new MockHttpServletRequest("GET", "/api/client/orders/status");
+        open = new MockHttpServletRequest("GET", "/api/client/open/events");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public int validToken() throws ServletException, IOException {
+        return run(authenticated);
+    }
+
+    @Benchmark
+    public int missingToken() throws ServletException, IOException {
+        return run(anonymous);
+    }
+
+    @Benchmark
+    public int skippedPath() throws ServletException, IOException {
+        return run(open);
+    }
+
+    private int run(MockHttpServletRequest request) throws ServletException, IOException {
+        response.reset();
+        try {
+            filter.doFilter(request, response, NO_OP_CHAIN);
+            return response.getStatus();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.flashsale.backend.security;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description JwtUtils parse / validate. validateThenClaims is what AuthJwtFilter does today (the token is parsed twice).
+ * @author Yang-Hsu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = newJwtUtils();
+        token = jwtUtils.generateAccessToken(UUID.randomUUID().toString(), "bench@flashsale.com", "Bench User");
+    }
+
+    static JwtUtils newJwtUtils() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "accessExpirationMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(jwtUtils, "refreshExpirationMs", TimeUnit.HOURS.toMillis(2));
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateAccessToken("member-id", "bench@flashsale.com", "Bench User");
+    }
+
+    @Benchmark
+    public void validate() {
+        jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public Claims claims() {
+        return jwtUtils.getClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public Claims validateThenClaims() {
+        jwtUtils.validateJwtToken(token);
+        return jwtUtils.getClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public String memberId() {
+        return jwtUtils.getMemberIdFromToken(token);
+    }
+}
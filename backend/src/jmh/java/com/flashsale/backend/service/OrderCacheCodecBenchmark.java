@@ -0,0 +1,82 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.config.RedisConfig;
+import com.flashsale.backend.dto.response.OrderClientDetailResponse;
+import com.flashsale.backend.entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description db1 order cache value: RedisConfig's db1 serializer (GenericJackson2Json with default typing) versus
+ * the 31-byte record RedisOrderService writes. No connection is opened, only the serializer is taken from the template.
+ * @author Yang-Hsu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCacheCodecBenchmark {
+
+    private RedisSerializer<Object> db1Serializer;
+    private Order order;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        RedisConfig redisConfig = new RedisConfig();
+        ReflectionTestUtils.setField(redisConfig, "redisHost", "localhost");
+        ReflectionTestUtils.setField(redisConfig, "redisPort", 6379);
+        db1Serializer = (RedisSerializer<Object>) redisConfig.redisTemplateDb1().getHashValueSerializer();
+
+        order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setMemberId(UUID.randomUUID().toString());
+        order.setProductId(UUID.randomUUID().toString());
+        order.setEventId(UUID.randomUUID().toString());
+        order.setQuantity(2);
+        order.setTotalPrice(new BigDecimal("1998.00"));
+        order.setStatus("PENDING");
+        order.setCreatedAt(LocalDateTime.now());
+        json = db1Serializer.serialize(order);
+        binary = RedisOrderService.encode(order);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return db1Serializer.serialize(order);
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return db1Serializer.deserialize(json);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return RedisOrderService.encode(order);
+    }
+
+    @Benchmark
+    public OrderClientDetailResponse decodeBinary() {
+        return RedisOrderService.decode(binary);
+    }
+}
@@ -0,0 +1,85 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.common.metrics.PurchaseMetrics;
+import com.flashsale.backend.common.util.OrderIdGenerator;
+import com.flashsale.backend.dto.request.OrderRequest;
+import com.flashsale.backend.dto.response.EventProductDTO;
+import com.flashsale.backend.entity.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description Request side of OrderService.createOrder with in-memory stand-ins: preheated snapshot, stock deduct
+ * always succeeds, dispatcher accepts and drops the order. What is left is validation, id generation, Order
+ * construction and the PurchaseMetrics timers. Meant to be read with -prof gc (gc.alloc.rate.norm = bytes per order).
+ * @author Yang-Hsu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    private OrderService orderService;
+    private OrderIdGenerator orderIdGenerator;
+    private OrderRequest request;
+
+    @Setup
+    public void setUp() {
+        EventProductDTO snapshot = new EventProductDTO();
+        snapshot.setEventId(UUID.randomUUID().toString());
+        snapshot.setProductId(UUID.randomUUID().toString());
+        snapshot.setPrice(new BigDecimal("999.00"));
+        snapshot.setStartTime(LocalDateTime.now().minusHours(1));
+        snapshot.setEndTime(LocalDateTime.now().plusHours(1));
+        snapshot.setPaymentWindowMinutes(10);
+
+        RedisEventService redisEventService = new RedisEventService(null) {
+            @Override
+            public EventProductDTO getEventSnapshot(String eventId) {
+                return snapshot;
+            }
+        };
+        RedisStockService redisStockService = new RedisStockService(null, null, null, null) {
+            @Override
+            public long decreaseStock(String productId, String memberId, int quantity) {
+                return 1L;
+            }
+        };
+        orderIdGenerator = new OrderIdGenerator(1);
+        orderService = new OrderService(null, null, redisStockService, null, redisEventService,
+                new SoldOutRegistry(null, null), order -> true, orderIdGenerator,
+                new OrderExpiryService(null, null, null), null, new PurchaseMetrics(new SimpleMeterRegistry()));
+
+        request = new OrderRequest();
+        request.setMemberId(UUID.randomUUID().toString());
+        request.setEventId(snapshot.getEventId());
+        request.setQuantity(1);
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder(request);
+    }
+
+    @Benchmark
+    public String orderId() {
+        return orderIdGenerator.nextId();
+    }
+}
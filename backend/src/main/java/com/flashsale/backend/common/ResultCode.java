@@ -34,11 +34,13 @@ public enum ResultCode {
     ORDER_NOT_FOUND(4301, "order_not_found"),
     ORDER_IS_UPDATED_BY_OTHERS(4302, "order_is_updated_by_others"),
     ORDER_STATUS_INVALID(4303, "order_status_invalid"),
+    ORDER_LIMIT_EXCEEDED(4304, "order_purchase_limit_exceeded"),
 
     // Event
     EVENT_NOT_FOUND(4401, "event_not_found"),
     EVENT_EXPIRED(4402, "event_expired"),
     EVENT_ALREADY_STARTED(4403, "event_already_started"),
+    EVENT_NOT_STARTED(4404, "event_not_started"),
 
     // Job
     JOB_NOT_FOUND(4501, "job_not_found"),
@@ -58,6 +60,9 @@ public enum ResultCode {
     STOCK_EMPTY(4608, "stock_is_required"),
     STOCK_INVALID(4609, "stock_invalid"),
     STOCK_SOLD_OUT(4620, "stock_sold_out"),
+    STOCK_SEGMENTS_INVALID(4621, "stock_segments_invalid"),
+    MAX_PER_MEMBER_INVALID(4622, "max_per_member_invalid"),
+    PAYMENT_WINDOW_INVALID(4623, "payment_window_invalid"),
     STATUS_INVALID(4610, "status_invalid"),
     START_TIME_EMPTY(4611, "start_time_is_required"),
     END_TIME_EMPTY(4612, "end_time_is_required"),
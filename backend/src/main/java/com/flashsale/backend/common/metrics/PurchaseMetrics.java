@@ -0,0 +1,125 @@
+package com.flashsale.backend.common.metrics;
+
+import com.flashsale.backend.common.ResultCode;
+import com.flashsale.backend.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description Meters of the purchase pipeline, one place for names and tags (Prometheus: /actuator/prometheus).
+ * 每個 timer 都帶 event (或 product) 與 result 標籤；histogram 由 management.metrics.distribution.* 開啟。
+ * 步驟計時用法：t = metrics.xxxStep(..., t)，回傳值即下一步的起點。
+ * @author Yang-Hsu
+ */
+@Component
+@RequiredArgsConstructor
+public class PurchaseMetrics {
+
+    public static final String CREATE_QUEUE = "create";
+    public static final String CANCEL_QUEUE = "cancel";
+
+    private static final String PREFIX = "flashsale.purchase";
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * End-to-end OrderService.createOrder, result = ResultCode name
+     */
+    public void orderCreated(String eventId, ResultCode result, long startNanos) {
+        record(Timer.builder(PREFIX + ".order.create")
+                .description("OrderService.createOrder admission latency")
+                .tag("event", tag(eventId))
+                .tag("result", result.name()), startNanos);
+    }
+
+    /**
+     * Result code of a failed admission: BusinessException carries it, anything else is a SYSTEM_ERROR
+     */
+    public static ResultCode resultOf(Exception e) {
+        return e instanceof BusinessException business ? business.getResultCode() : ResultCode.SYSTEM_ERROR;
+    }
+
+    /**
+     * One step of createOrder (snapshot, deduct, dispatch), returns the start of the next step
+     */
+    public long orderStep(String step, String eventId, String result, long startNanos) {
+        return record(Timer.builder(PREFIX + ".order.step")
+                .tag("step", step)
+                .tag("event", tag(eventId))
+                .tag("result", result), startNanos);
+    }
+
+    /**
+     * Stock Lua script as seen by RedisStockService, result decoded from the script return value
+     */
+    public void stockScript(String script, String productId, long code, long startNanos) {
+        record(Timer.builder(PREFIX + ".stock.script")
+                .tag("script", script)
+                .tag("product", tag(productId))
+                .tag("result", stockResult(code)), startNanos);
+    }
+
+    /**
+     * One step of a consumer (queue = create / cancel), returns the start of the next step
+     */
+    public long consumerStep(String queue, String step, String eventId, long startNanos) {
+        return record(Timer.builder(PREFIX + ".consumer.step")
+                .tag("queue", queue)
+                .tag("step", step)
+                .tag("event", tag(eventId)), startNanos);
+    }
+
+    /**
+     * Whole message handling of a consumer with its outcome (processed / duplicate / failed / skipped ...)
+     */
+    public void consumerHandled(String queue, String eventId, String result, long startNanos) {
+        record(Timer.builder(PREFIX + ".consumer.message")
+                .tag("queue", queue)
+                .tag("event", tag(eventId))
+                .tag("result", result), startNanos);
+    }
+
+    /**
+     * DB1 order status cache operation (get: hit / miss, writes: ok / error)
+     */
+    public void orderCache(String operation, String eventId, String result, long startNanos) {
+        record(Timer.builder(PREFIX + ".order.cache")
+                .tag("operation", operation)
+                .tag("event", tag(eventId))
+                .tag("result", result), startNanos);
+    }
+
+    /**
+     * Same -1 / -2 / -3 / -4 contract as the stock scripts, >= 0 is success
+     */
+    public static String stockResult(long code) {
+        if (code >= 0) {
+            return "ok";
+        }
+        if (code < -4) {
+            return "error";
+        }
+        return switch ((int) code) {
+            case -1 -> "missing";
+            case -2 -> "insufficient";
+            case -3 -> "sold_out";
+            case -4 -> "limit";
+            default -> "error";
+        };
+    }
+
+    private long record(Timer.Builder builder, long startNanos) {
+        long now = System.nanoTime();
+        builder.register(meterRegistry).record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    private static String tag(String value) {
+        return value != null ? value : NONE;
+    }
+}
@@ -1,6 +1,7 @@
 package com.flashsale.backend.config;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -8,8 +9,9 @@ import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import com.flashsale.backend.mq.message.OrderMessageConverter;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 @Configuration
 public class RabbitConfig {
@@ -30,6 +32,11 @@ public class RabbitConfig {
     public static final String CANCEL_ROUTING_KEY = "flashsale.cancel.key";
     public static final String TTL_ROUTING_KEY = "flashsale.ttl.key";
 
+    // Listener ids (AdaptiveConcurrencyController looks containers up by id)
+    public static final String ORDER_LISTENER_ID = "orderCreateListener";
+    public static final String ORDER_BATCH_LISTENER_ID = "orderCreateBatchListener";
+    public static final String CANCEL_LISTENER_ID = "orderCancelListener";
+
     // === Exchanges ===
     @Bean
     public DirectExchange orderExchange() {
@@ -106,15 +113,20 @@ public class RabbitConfig {
     }
 
     // === General Config ===
+    /**
+     * Binary order records on every order queue; still decodes JSON Order messages published before the switch
+     */
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter orderMessageConverter() {
+        return new OrderMessageConverter();
     }
 
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(jsonMessageConverter());
+        template.setMessageConverter(orderMessageConverter());
+        // Unroutable messages come back as returns (publisher-returns=true), OrderMessagePublisher treats them as failed
+        template.setMandatory(true);
         return template;
     }
 
@@ -122,14 +134,44 @@ public class RabbitConfig {
      * 專用於 ORDER_QUEUE 的 ContainerFactory：不進行 retry。
      * 原因：訂單建立失敗（如 MySQL 庫存不足）屬於不可重試錯誤；
      * 若使用 retry，catch block 中的 Redis 還原會被執行多次，造成庫存虛增。
+     * Boot 只會替自動配置的 factory 切換 virtual thread，這個自訂 factory 需自行設定。
      */
     @Bean
     public SimpleRabbitListenerContainerFactory noRetryContainerFactory(
-            ConnectionFactory connectionFactory, MessageConverter jsonMessageConverter) {
+            ConnectionFactory connectionFactory, MessageConverter orderMessageConverter,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(orderMessageConverter);
+        factory.setDefaultRequeueRejected(false);
+        if (virtualThreads) {
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-order-"));
+        }
+        return factory;
+    }
+
+    /**
+     * ORDER_QUEUE 批次模式 (flashsale.order.consumer.batch.enabled=true)：湊滿 batchSize 或等待 receiveTimeoutMs 後交給
+     * OrderBatchConsumer；listener 返回後 container 以 multiple-ack 一次確認整批。同樣不 retry、不 requeue。
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchOrderContainerFactory(
+            ConnectionFactory connectionFactory, MessageConverter orderMessageConverter,
+            @Value("${flashsale.order.consumer.batch.size:100}") int batchSize,
+            @Value("${flashsale.order.consumer.batch.receiveTimeoutMs:50}") long receiveTimeoutMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(jsonMessageConverter);
+        factory.setMessageConverter(orderMessageConverter);
         factory.setDefaultRequeueRejected(false);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        if (virtualThreads) {
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-order-batch-"));
+        }
         return factory;
     }
 }
@@ -0,0 +1,13 @@
+package com.flashsale.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * @description Node-local periodic tasks (@Scheduled). Cluster-wide, admin-managed jobs stay in Quartz (QuartzConfig).
+ * @author Yang-Hsu
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
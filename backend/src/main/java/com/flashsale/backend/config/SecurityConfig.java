@@ -7,6 +7,7 @@ import com.flashsale.backend.security.AuthJwtFilter;
 
 import java.util.List;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -64,11 +65,14 @@ public class SecurityConfig {
                         })
                 )
                 .authorizeHttpRequests(auth -> auth
+                        // SSE / long-poll results are written on an ASYNC dispatch the JWT filter skips; the REQUEST dispatch was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(SWAGGER_WHITELIST).permitAll() // Allow Swagger
                         .requestMatchers("/api/client/auth/**").permitAll()
                         .requestMatchers("/api/client/open/**").permitAll()
                         .requestMatchers("/api/admin/**").permitAll()
                         .requestMatchers("/api/test/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Prometheus scrape, no JWT
                         .anyRequest().authenticated()
                 );
         //cors : Allow cross-origin requests from specific sites
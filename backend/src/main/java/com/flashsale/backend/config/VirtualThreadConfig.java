@@ -0,0 +1,27 @@
+package com.flashsale.backend.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * @description Virtual-thread mode (spring.threads.virtual.enabled=true).
+ * Tomcat、@Scheduled 與預設 RabbitListener container 由 Spring Boot 自動切換；
+ * 這裡補上 Boot 不會處理的部分 (Quartz)。noRetryContainerFactory 見 RabbitConfig。
+ * @author Yang-Hsu
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    /**
+     * Quartz jobs run on a virtual thread each instead of the fixed SimpleThreadPool
+     */
+    @Bean
+    public SchedulerFactoryBeanCustomizer virtualThreadQuartzCustomizer() {
+        return schedulerFactoryBean -> schedulerFactoryBean.setTaskExecutor(new VirtualThreadTaskExecutor("quartz-"));
+    }
+}
@@ -4,13 +4,16 @@ import com.flashsale.backend.common.ApiResponse;
 import com.flashsale.backend.common.ResultCode;
 import com.flashsale.backend.dto.response.DashboardStockResponse;
 import com.flashsale.backend.service.DashboardService;
+import com.flashsale.backend.service.StockStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -26,6 +29,7 @@ import java.util.List;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final StockStreamService stockStreamService;
 
     @Operation(summary = "Get Redis Stock Overview", description = "Returns all preheated products with Redis stock vs DB stock for admin monitoring.")
     @GetMapping("/stocks")
@@ -33,4 +37,10 @@ public class DashboardController {
         List<DashboardStockResponse> stocks = dashboardService.getStocks();
         return ResponseEntity.ok(new ApiResponse<>(ResultCode.SUCCESS, stocks));
     }
+
+    @Operation(summary = "Stream Redis Stock Changes", description = "Server-Sent Events: one 'snapshot' event with every preheated product, then 'stock' events carrying only the products whose Redis or DB stock changed.")
+    @GetMapping(value = "/stocks/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStocks() {
+        return stockStreamService.connect();
+    }
 }
@@ -87,6 +87,9 @@ public class EventController {
                 .startTime(event.getStartTime())
                 .endTime(event.getEndTime())
                 .status(event.getStatus())
+                .stockSegments(event.getStockSegments())
+                .maxPerMember(event.getMaxPerMember())
+                .paymentWindowMinutes(event.getPaymentWindowMinutes())
                 .createdAt(event.getCreatedAt())
                 .updatedAt(event.getUpdatedAt())
                 .build();
@@ -10,6 +10,7 @@ import com.flashsale.backend.entity.Member;
 import com.flashsale.backend.entity.Order;
 import com.flashsale.backend.entity.Product;
 import com.flashsale.backend.security.SecurityUtils;
+import com.flashsale.backend.service.OrderResultNotifier;
 import com.flashsale.backend.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -20,9 +21,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Yang-Hsu
@@ -36,6 +43,10 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderResultNotifier orderResultNotifier;
+
+    @Value("${flashsale.order.result.maxWaitMs:25000}")
+    private long maxWaitMs;
 
     @Operation(summary = "Create Order (Client)", description = "Creates a new order for a flash sale event. Requires JWT authentication.")
     @PostMapping("/api/client/orders")
@@ -94,6 +105,42 @@ public class OrderController {
         return ResponseEntity.ok(new ApiResponse<>(ResultCode.SUCCESS, response));
     }
 
+    @Operation(summary = "Stream Order Status (Client)", description = "Server-Sent Events: emits one 'order-status' event once the order is persisted or failed (PENDING on timeout), then closes. Requires JWT authentication.")
+    @GetMapping(value = "/api/client/orders/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderStatus(
+            @Parameter(description = "Event ID to wait for") @RequestParam String eventId) {
+        String currentUserId = SecurityUtils.getCurrentUserId();
+        SecurityUtils.checkPermission(currentUserId);
+        log.info("API: Stream order status for memberId: {}, eventId: {}", currentUserId, eventId);
+        SseEmitter emitter = new SseEmitter(maxWaitMs + 5000);
+        CompletableFuture<OrderStatusResponse> result = orderResultNotifier.awaitResult(currentUserId, eventId, maxWaitMs);
+        // client went away: drop the waiter instead of holding it until the timeout
+        emitter.onCompletion(() -> result.cancel(false));
+        emitter.onTimeout(() -> result.cancel(false));
+        result.thenAccept(response -> {
+            try {
+                emitter.send(SseEmitter.event().name("order-status").data(new ApiResponse<>(ResultCode.SUCCESS, response)));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    @Operation(summary = "Wait Order Status (Client)", description = "Long-poll fallback for clients without SSE: answers as soon as the order is persisted or failed, PENDING after timeoutMs. Requires JWT authentication.")
+    @GetMapping("/api/client/orders/status/wait")
+    public CompletableFuture<ResponseEntity<ApiResponse<OrderStatusResponse>>> waitOrderStatus(
+            @Parameter(description = "Event ID to wait for") @RequestParam String eventId,
+            @Parameter(description = "Maximum wait in milliseconds (capped by the server)") @RequestParam(defaultValue = "25000") long timeoutMs) {
+        String currentUserId = SecurityUtils.getCurrentUserId();
+        SecurityUtils.checkPermission(currentUserId);
+        log.info("API: Wait order status for memberId: {}, eventId: {}", currentUserId, eventId);
+        long wait = Math.max(0, Math.min(timeoutMs, maxWaitMs));
+        return orderResultNotifier.awaitResult(currentUserId, eventId, wait)
+                .thenApply(response -> ResponseEntity.ok(new ApiResponse<>(ResultCode.SUCCESS, response)));
+    }
+
     @Operation(summary = "Search Orders (Admin)", description = "Searches and retrieves a paginated list of orders based on product or member name. Requires admin privileges.")
     @GetMapping("/api/admin/orders")
     public ResponseEntity<ApiResponse<Page<OrderAdminResponse>>> searchOrders(
@@ -0,0 +1,32 @@
+package com.flashsale.backend.controller;
+
+import com.flashsale.backend.common.ApiResponse;
+import com.flashsale.backend.common.ResultCode;
+import com.flashsale.backend.dto.response.OutboxStatusResponse;
+import com.flashsale.backend.mq.producer.OrderOutbox;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * @description OutboxController — node-local order outbox backlog (per node, not cluster-wide)
+ * @author Yang-Hsu
+ */
+@Tag(name = "Admin Outbox", description = "Order outbox monitoring endpoints.")
+@RestController
+@RequestMapping("/api/admin/outbox")
+@RequiredArgsConstructor
+public class OutboxController {
+
+    private final OrderOutbox orderOutbox;
+
+    @Operation(summary = "Get Outbox Status", description = "Returns the pending backlog and relay state of this node's order outbox.")
+    @GetMapping
+    public ResponseEntity<ApiResponse<OutboxStatusResponse>> getStatus() {
+        return ResponseEntity.ok(new ApiResponse<>(ResultCode.SUCCESS, orderOutbox.getStatus()));
+    }
+}
@@ -2,6 +2,7 @@ package com.flashsale.backend.controller;
 
 import com.flashsale.backend.common.ApiResponse;
 import com.flashsale.backend.common.ResultCode;
+import com.flashsale.backend.service.RedisStockService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,6 +34,8 @@ public class RedisController {
     @Qualifier("redisTemplateDb1")
     private final RedisTemplate<String, Object> redisTemplateForOrder;
 
+    private final RedisStockService redisStockService;
+
     private static final String PREHEATED_PRODUCT_KEYS = "preheated_product_keys";
 
     @Operation(summary = "Get Preheated Products", description = "Retrieves a paginated list of products that have been preheated into Redis cache.")
@@ -49,7 +52,7 @@ public class RedisController {
         List<Map<Object, Object>> products = List.of();
         if (productKeys != null && !productKeys.isEmpty()) {
             products = productKeys.stream()
-                    .map(key -> redisTemplateForStock.opsForHash().entries((String) key))
+                    .map(key -> withAggregatedStock(redisTemplateForStock.opsForHash().entries((String) key)))
                     .collect(Collectors.toList());
         }
         Page<Map<Object, Object>> page = new PageImpl<>(products, pageable, total);
@@ -68,6 +71,18 @@ public class RedisController {
         if (product == null || product.isEmpty()) {
             return ResponseEntity.ok(ApiResponse.of(ResultCode.EVENT_NOT_FOUND));
         }
-        return ResponseEntity.ok(new ApiResponse<>(ResultCode.SUCCESS, product));
+        return ResponseEntity.ok(new ApiResponse<>(ResultCode.SUCCESS, withAggregatedStock(product)));
+    }
+
+    /**
+     * Segmented products keep stock in sub-counters; expose their sum as "stock" like an ordinary product
+     */
+    private Map<Object, Object> withAggregatedStock(Map<Object, Object> product) {
+        Object productId = product.get("productId");
+        if (productId != null && product.containsKey(RedisStockService.SEGMENTS_FIELD)) {
+            Integer stock = redisStockService.getStock((String) productId);
+            product.put(RedisStockService.STOCK_FIELD, String.valueOf(stock != null ? stock : 0));
+        }
+        return product;
     }
 }
@@ -41,4 +41,15 @@ public class EventRequest implements DateRangeAware {
     @Min(value = 0, message = "STATUS_INVALID")
     @Max(value = 2, message = "STATUS_INVALID")
     private Integer status;
+
+    @Min(value = 1, message = "STOCK_SEGMENTS_INVALID")
+    @Max(value = 64, message = "STOCK_SEGMENTS_INVALID")
+    private Integer stockSegments;
+
+    @Min(value = 1, message = "MAX_PER_MEMBER_INVALID")
+    private Integer maxPerMember;
+
+    @Min(value = 1, message = "PAYMENT_WINDOW_INVALID")
+    @Max(value = 1440, message = "PAYMENT_WINDOW_INVALID")
+    private Integer paymentWindowMinutes;
 }
@@ -24,4 +24,7 @@ public class EventProductDTO {
     private Integer stock;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    private Integer stockSegments;
+    private Integer maxPerMember;
+    private Integer paymentWindowMinutes;
 }
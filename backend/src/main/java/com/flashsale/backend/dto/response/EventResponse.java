@@ -20,6 +20,9 @@ public class EventResponse {
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private Integer status;
+    private Integer stockSegments;
+    private Integer maxPerMember;
+    private Integer paymentWindowMinutes;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
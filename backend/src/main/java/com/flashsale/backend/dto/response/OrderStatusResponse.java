@@ -1,7 +1,6 @@
 package com.flashsale.backend.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.flashsale.backend.entity.Order;
 import lombok.Builder;
 import lombok.Data;
 
@@ -10,5 +9,5 @@ import lombok.Data;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class OrderStatusResponse {
     private String status;
-    private Order order;
+    private OrderClientDetailResponse order;
 }
@@ -0,0 +1,28 @@
+package com.flashsale.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @description OutboxStatusResponse — backlog of this node's local order outbox
+ * @author Yang-Hsu
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxStatusResponse {
+    private boolean enabled;
+    private String path;
+    private String fsyncPolicy;
+    private Integer capacityBytes;
+    private Long pendingBytes;
+    private Long pendingRecords;
+    private Long relayedTotal;
+    private LocalDateTime lastRelayAt;
+    private String lastRelayError;
+}
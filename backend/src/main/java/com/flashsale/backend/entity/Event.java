@@ -45,6 +45,15 @@ public class Event extends BaseEntity {
     @Column(name = "status", nullable = false)
     private Integer status = 0; // 0-INACTIVE, 1-ACTIVE, 2-ENDED
 
+    @Column(name = "stock_segments")
+    private Integer stockSegments; // Redis stock sub-counters at preheat, null/1 = single key
+
+    @Column(name = "max_per_member")
+    private Integer maxPerMember; // Max total quantity one member may buy in this event, null = flashsale.stock.maxPerMember
+
+    @Column(name = "payment_window_minutes")
+    private Integer paymentWindowMinutes; // Minutes a PENDING order may stay unpaid, null = flashsale.order.expiry.defaultWindowMinutes
+
     @Version
     private Long version;
 
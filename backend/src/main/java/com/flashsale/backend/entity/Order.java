@@ -6,6 +6,7 @@ import lombok.EqualsAndHashCode;
 
 import java.io.Serial;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * @author Yang-Hsu
@@ -15,14 +16,13 @@ import java.math.BigDecimal;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_stock_pending", columnList = "stock_pending"))
 public class Order extends BaseEntity {
 
     @Serial
     private static final long serialVersionUID = 1L;
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @Id // assigned by OrderIdGenerator in createOrder (time-ordered, keeps InnoDB inserts append-only)
     @Column(name = "order_id", nullable = false, length = 36)
     private String orderId;
 
@@ -44,6 +44,12 @@ public class Order extends BaseEntity {
     @Column(name = "status", nullable = false, length = 20)
     private String status; // e.g., PENDING, COMPLETED, CANCELLED
 
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt; // Payment deadline, set at admission from the event's payment window
+
+    @Column(name = "stock_pending", nullable = false)
+    private Boolean stockPending = false; // Write-behind mode: events.stock not yet decremented for this order
+
     @Version
     private Long version;
 
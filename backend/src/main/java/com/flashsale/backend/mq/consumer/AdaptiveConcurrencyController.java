@@ -0,0 +1,211 @@
+package com.flashsale.backend.mq.consumer;
+
+import com.flashsale.backend.config.RabbitConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description Adjusts consumer count and prefetch of the ORDER_QUEUE / CANCEL_QUEUE listeners every interval.
+ * 佇列積壓持續超過門檻 (連續 hysteresisTicks 次) 才擴增，積壓消化後才逐一縮減；
+ * Hikari 取得連線等待或處理時間過高時代表 MySQL 已飽和，直接減半，避免更多 consumer 只是在連線池排隊。
+ * Batch listener 的 timer 量的是整批 (最多 batch.size 筆，receiveTimeout 時可能不滿)，因此另用 batchProcessingHighMs 判斷。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "flashsale.mq.adaptive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AdaptiveConcurrencyController {
+
+    private static final String METRIC_PREFIX = "flashsale.mq.consumers";
+    private static final Map<String, String> LISTENERS = Map.of(
+            RabbitConfig.ORDER_LISTENER_ID, RabbitConfig.ORDER_QUEUE,
+            RabbitConfig.ORDER_BATCH_LISTENER_ID, RabbitConfig.ORDER_QUEUE,
+            RabbitConfig.CANCEL_LISTENER_ID, RabbitConfig.CANCEL_QUEUE);
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final AmqpAdmin amqpAdmin;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${flashsale.mq.adaptive.minConsumers:1}")
+    private int minConsumers;
+
+    @Value("${flashsale.mq.adaptive.maxConsumers:16}")
+    private int maxConsumers;
+
+    @Value("${flashsale.mq.adaptive.scaleUpDepthPerConsumer:200}")
+    private int scaleUpDepthPerConsumer;
+
+    @Value("${flashsale.mq.adaptive.scaleDownDepthPerConsumer:20}")
+    private int scaleDownDepthPerConsumer;
+
+    @Value("${flashsale.mq.adaptive.hysteresisTicks:3}")
+    private int hysteresisTicks;
+
+    @Value("${flashsale.mq.adaptive.dbAcquireHighMs:50}")
+    private double dbAcquireHighMs;
+
+    @Value("${flashsale.mq.adaptive.processingHighMs:500}")
+    private double processingHighMs;
+
+    @Value("${flashsale.mq.adaptive.batchProcessingHighMs:5000}")
+    private double batchProcessingHighMs;
+
+    @Value("${flashsale.mq.adaptive.prefetchTargetMs:200}")
+    private double prefetchTargetMs;
+
+    @Value("${flashsale.mq.adaptive.minPrefetch:10}")
+    private int minPrefetch;
+
+    @Value("${flashsale.mq.adaptive.maxPrefetch:250}")
+    private int maxPrefetch;
+
+    private final Map<String, ListenerState> states = new ConcurrentHashMap<>();
+    private final TimerWindow dbAcquire = new TimerWindow();
+
+    enum Decision {
+        UP, DOWN, DB_BACKOFF, HOLD
+    }
+
+    static final class ListenerState {
+        final boolean batch;
+        volatile int consumers;
+        volatile int prefetch;
+        volatile long depth;
+        int upStreak;
+        int downStreak;
+        final TimerWindow processing = new TimerWindow();
+
+        ListenerState(int consumers, int prefetch) {
+            this(false, consumers, prefetch);
+        }
+
+        ListenerState(boolean batch, int consumers, int prefetch) {
+            this.batch = batch;
+            this.consumers = consumers;
+            this.prefetch = prefetch;
+        }
+    }
+
+    /**
+     * Average of the timers' samples recorded since the previous call
+     */
+    static final class TimerWindow {
+        private long count;
+        private double totalMs;
+
+        double advance(Collection<Timer> timers) {
+            long newCount = 0;
+            double newTotalMs = 0;
+            for (Timer timer : timers) {
+                newCount += timer.count();
+                newTotalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+            }
+            long samples = newCount - count;
+            double average = samples > 0 ? (newTotalMs - totalMs) / samples : 0;
+            count = newCount;
+            totalMs = newTotalMs;
+            return average;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flashsale.mq.adaptive.intervalMs:5000}", initialDelayString = "${flashsale.mq.adaptive.intervalMs:5000}")
+    public void adjust() {
+        double acquireMs = dbAcquire.advance(meterRegistry.find("hikaricp.connections.acquire").timers());
+        LISTENERS.forEach((listenerId, queue) -> {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+            if (container instanceof SimpleMessageListenerContainer simple && simple.isRunning()) {
+                try {
+                    adjust(listenerId, queue, simple, acquireMs);
+                } catch (Exception e) {
+                    log.warn("Adaptive concurrency check failed for {}: {}", listenerId, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void adjust(String listenerId, String queue, SimpleMessageListenerContainer container, double acquireMs) {
+        ListenerState state = states.computeIfAbsent(listenerId, id -> register(id, queue, container));
+        QueueInformation info = amqpAdmin.getQueueInfo(queue);
+        state.depth = info != null ? info.getMessageCount() : 0;
+        double processingMs = state.processing.advance(
+                meterRegistry.find("spring.rabbitmq.listener").tag("listener.id", listenerId).timers());
+
+        Decision decision = decide(state, state.depth, processingMs, acquireMs);
+        if (decision == Decision.HOLD) {
+            return;
+        }
+        int previous = state.consumers;
+        state.consumers = switch (decision) {
+            case UP -> Math.min(maxConsumers, previous + Math.max(1, previous / 2));
+            case DOWN -> Math.max(minConsumers, previous - 1);
+            default -> Math.max(minConsumers, previous / 2);
+        };
+        // Prefetch only reaches consumers started after the change; the batch container needs prefetch >= batch size
+        if (processingMs > 0 && !state.batch) {
+            state.prefetch = (int) Math.max(minPrefetch, Math.min(maxPrefetch, prefetchTargetMs / processingMs));
+            container.setPrefetchCount(state.prefetch);
+        }
+        container.setConcurrentConsumers(state.consumers);
+        meterRegistry.counter(METRIC_PREFIX + ".decision", "listener", listenerId, "action", decision.name().toLowerCase()).increment();
+        log.info("{}: {} consumers -> {} (depth={}, processing={}ms, dbAcquire={}ms, prefetch={})", listenerId, previous,
+                state.consumers, state.depth, String.format("%.1f", processingMs), String.format("%.1f", acquireMs), state.prefetch);
+    }
+
+    /**
+     * Pure decision step; updates only the hysteresis streaks
+     */
+    Decision decide(ListenerState state, long depth, double processingMs, double acquireMs) {
+        if (acquireMs > dbAcquireHighMs || processingMs > (state.batch ? batchProcessingHighMs : processingHighMs)) {
+            state.upStreak = 0;
+            state.downStreak = 0;
+            return state.consumers > minConsumers ? Decision.DB_BACKOFF : Decision.HOLD;
+        }
+        if (depth > (long) scaleUpDepthPerConsumer * state.consumers) {
+            state.downStreak = 0;
+            if (++state.upStreak >= hysteresisTicks && state.consumers < maxConsumers) {
+                state.upStreak = 0;
+                return Decision.UP;
+            }
+            return Decision.HOLD;
+        }
+        if (depth < (long) scaleDownDepthPerConsumer * state.consumers) {
+            state.upStreak = 0;
+            if (++state.downStreak >= hysteresisTicks && state.consumers > minConsumers) {
+                state.downStreak = 0;
+                return Decision.DOWN;
+            }
+            return Decision.HOLD;
+        }
+        state.upStreak = 0;
+        state.downStreak = 0;
+        return Decision.HOLD;
+    }
+
+    private ListenerState register(String listenerId, String queue, SimpleMessageListenerContainer container) {
+        ListenerState state = new ListenerState(RabbitConfig.ORDER_BATCH_LISTENER_ID.equals(listenerId),
+                Math.max(minConsumers, container.getActiveConsumerCount()), 0);
+        Tags tags = Tags.of("listener", listenerId, "queue", queue);
+        meterRegistry.gauge(METRIC_PREFIX + ".target", tags, state, s -> s.consumers);
+        meterRegistry.gauge(METRIC_PREFIX + ".prefetch", tags, state, s -> s.prefetch);
+        meterRegistry.gauge(METRIC_PREFIX + ".queue.depth", tags, state, s -> s.depth);
+        return state;
+    }
+}
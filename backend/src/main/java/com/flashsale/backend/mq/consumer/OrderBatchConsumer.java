@@ -0,0 +1,175 @@
+package com.flashsale.backend.mq.consumer;
+
+import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.message.OrderCreateMessage;
+import com.flashsale.backend.repository.EventRepository;
+import com.flashsale.backend.service.OrderExpiryService;
+import com.flashsale.backend.service.OrderResultNotifier;
+import com.flashsale.backend.service.RedisOrderService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * @description Batch consumer for ORDER_QUEUE (flashsale.order.consumer.batch.enabled=true).
+ * 一個交易內完成整批：JDBC batch insert (rewriteBatchedStatements 轉成 multi-row INSERT)、每個 event 一次彙總扣庫存、
+ * pipeline 寫入 db1 快取；container 於 listener 返回後以 multiple-ack 一次確認整批。
+ * 重複投遞 (outbox 重放、confirm 逾時重送、重啟後未 ack 的 prefetch) 先以一次 SELECT 過濾已存在的 orderId，
+ * 只對實際 insert 的訂單扣庫存 / 寫快取 / 排程 / 通知。整批失敗時 rollback，改為逐筆處理，避免單筆壞訂單拖垮整批。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "flashsale.order.consumer.batch.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OrderBatchConsumer {
+
+    private static final String INSERT_ORDER_SQL = "INSERT INTO orders (order_id, member_id, product_id, event_id, quantity, "
+            + "total_price, status, expires_at, stock_pending, version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String EXISTING_ORDER_IDS_SQL = "SELECT order_id FROM orders WHERE order_id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EventRepository eventRepository;
+    private final RedisOrderService redisOrderService;
+    private final RabbitTemplate rabbitTemplate;
+    private final OrderConsumer orderConsumer;
+    private final OrderExpiryService orderExpiryService;
+    private final OrderResultNotifier orderResultNotifier;
+
+    @Value("${flashsale.stock.writeBehind.enabled:false}")
+    private boolean writeBehind;
+
+    @RabbitListener(id = RabbitConfig.ORDER_BATCH_LISTENER_ID, containerFactory = "batchOrderContainerFactory", queues = RabbitConfig.ORDER_QUEUE)
+    public void processCreateOrders(List<OrderCreateMessage> messages) {
+        processOrders(messages.stream().map(OrderCreateMessage::toOrder).toList());
+    }
+
+    void processOrders(List<Order> orders) {
+        log.info("Processing {} orders from MQ as one batch", orders.size());
+        try {
+            List<Order> inserted = transactionTemplate.execute(status -> writeBatch(orders));
+            // per-message fallback publishes its own results; duplicates were announced when first persisted
+            orderResultNotifier.publishAll(inserted, OrderResultNotifier.SUCCESS);
+        } catch (Exception e) {
+            log.warn("Batch of {} orders failed ({}), falling back to per-message processing.", orders.size(), e.getMessage());
+            // the rolled-back batch set versions; JPA has to see these orders as new again
+            orders.forEach(order -> order.setVersion(null));
+            orders.forEach(this::processSingle);
+        }
+    }
+
+    /**
+     * @return the orders actually inserted (redeliveries of persisted orders are skipped)
+     */
+    List<Order> writeBatch(List<Order> batch) {
+        List<Order> orders = withoutDuplicates(batch);
+        if (orders.isEmpty()) {
+            return orders;
+        }
+
+        // 1. Save the orders (JPA is bypassed; ids were assigned in createOrder)
+        LocalDateTime now = LocalDateTime.now();
+        for (Order order : orders) {
+            order.setStockPending(writeBehind);
+            order.setVersion(0L);
+            order.setCreatedAt(now);
+            order.setUpdatedAt(now);
+        }
+        jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orders, orders.size(), (ps, order) -> {
+            ps.setString(1, order.getOrderId());
+            ps.setString(2, order.getMemberId());
+            ps.setString(3, order.getProductId());
+            ps.setString(4, order.getEventId());
+            ps.setInt(5, order.getQuantity());
+            ps.setBigDecimal(6, order.getTotalPrice());
+            ps.setString(7, order.getStatus());
+            ps.setTimestamp(8, order.getExpiresAt() != null ? Timestamp.valueOf(order.getExpiresAt()) : null);
+            ps.setBoolean(9, writeBehind);
+            ps.setLong(10, order.getVersion());
+            ps.setTimestamp(11, Timestamp.valueOf(order.getCreatedAt()));
+            ps.setTimestamp(12, Timestamp.valueOf(order.getUpdatedAt()));
+        });
+
+        // 2. Decrease MySQL stock once per event; sorted so concurrent batches lock rows in the same order
+        //    (write-behind: left to StockWriteBehindFlusher)
+        if (!writeBehind) {
+            Map<String, Integer> quantityByEvent = new TreeMap<>();
+            orders.forEach(order -> quantityByEvent.merge(order.getEventId(), order.getQuantity(), Integer::sum));
+            quantityByEvent.forEach((eventId, quantity) -> {
+                if (eventRepository.decreaseStock(eventId, quantity) == 0) {
+                    throw new IllegalStateException("MySQL stock inconsistency detected for event " + eventId);
+                }
+            });
+        }
+
+        // 3. Cache order status in Redis, one pipeline
+        redisOrderService.setOrderCaches(orders);
+
+        // 4. Payment deadlines, one pipeline (or one channel in ttl-queue mode)
+        orderExpiryService.scheduleAll(orders);
+        return orders;
+    }
+
+    /**
+     * Same guard as OrderConsumer's existsById, one query for the batch; repeats inside the batch keep the first copy
+     */
+    private List<Order> withoutDuplicates(List<Order> batch) {
+        Map<String, Order> byId = new LinkedHashMap<>();
+        List<Order> withoutId = new ArrayList<>();
+        for (Order order : batch) {
+            if (order.getOrderId() == null) {
+                withoutId.add(order); // legacy message: the insert fails and the per-message path assigns an id
+            } else {
+                byId.putIfAbsent(order.getOrderId(), order);
+            }
+        }
+        Set<String> existing = byId.isEmpty() ? Collections.emptySet() : new HashSet<>(jdbcTemplate.queryForList(
+                String.format(EXISTING_ORDER_IDS_SQL, String.join(", ", Collections.nCopies(byId.size(), "?"))),
+                String.class, byId.keySet().toArray()));
+        int skipped = batch.size() - withoutId.size() - byId.size() + existing.size();
+        if (skipped > 0) {
+            log.warn("Skipping {} duplicate order messages in batch of {}.", skipped, batch.size());
+        }
+        List<Order> orders = new ArrayList<>(byId.size() + withoutId.size());
+        byId.values().stream().filter(order -> !existing.contains(order.getOrderId())).forEach(orders::add);
+        orders.addAll(withoutId);
+        return orders;
+    }
+
+    /**
+     * Same path as the single-message listener; a failed order (stock already restored there) is parked on ORDER_DLQ
+     * by hand, because rejecting inside a batch listener would reject the whole batch.
+     */
+    private void processSingle(Order order) {
+        try {
+            orderConsumer.processCreateOrder(order);
+        } catch (Exception e) {
+            log.error("Order {} failed in per-message fallback, moving to DLQ.", order.getOrderId(), e);
+            try {
+                rabbitTemplate.convertAndSend(RabbitConfig.DEAD_LETTER_EXCHANGE, RabbitConfig.ORDER_ROUTING_KEY, OrderCreateMessage.from(order));
+            } catch (Exception dlqError) {
+                // must not escape: the rest of the batch still has to be processed
+                log.error("Failed to park order {} on DLQ.", order.getOrderId(), dlqError);
+            }
+        }
+    }
+}
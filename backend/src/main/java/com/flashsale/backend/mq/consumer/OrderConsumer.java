@@ -1,16 +1,22 @@
 package com.flashsale.backend.mq.consumer;
 
+import com.flashsale.backend.common.metrics.PurchaseMetrics;
+import com.flashsale.backend.common.util.OrderIdGenerator;
 import com.flashsale.backend.config.RabbitConfig;
 import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.message.OrderCreateMessage;
+import com.flashsale.backend.mq.message.OrderExpiryMessage;
 import com.flashsale.backend.repository.EventRepository;
 import com.flashsale.backend.repository.OrderRepository;
+import com.flashsale.backend.service.OrderExpiryService;
+import com.flashsale.backend.service.OrderResultNotifier;
 import com.flashsale.backend.service.RedisOrderService;
 import com.flashsale.backend.service.RedisStockService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,46 +31,79 @@ public class OrderConsumer {
     private final EventRepository eventRepository;
     private final RedisStockService redisStockService;
     private final RedisOrderService redisOrderService;
-    private final RabbitTemplate rabbitTemplate;
+    private final OrderIdGenerator orderIdGenerator;
+    private final OrderExpiryService orderExpiryService;
+    private final OrderResultNotifier orderResultNotifier;
+    private final PurchaseMetrics purchaseMetrics;
+
+    @Value("${flashsale.stock.writeBehind.enabled:false}")
+    private boolean writeBehind;
 
     /**
      * @description Rabbit MQ Consumer (For Create Order)
      * @author Yang-Hsu
      * @date 2026/2/19 下午8:27
      */
-    @RabbitListener(containerFactory = "noRetryContainerFactory", queues = RabbitConfig.ORDER_QUEUE)
+    @RabbitListener(id = RabbitConfig.ORDER_LISTENER_ID, containerFactory = "noRetryContainerFactory", queues = RabbitConfig.ORDER_QUEUE,
+            autoStartup = "#{!${flashsale.order.consumer.batch.enabled:false}}") // OrderBatchConsumer takes the queue in batch mode
+    @Transactional
+    public void onCreateOrderMessage(OrderCreateMessage message) {
+        processCreateOrder(message.toOrder());
+    }
+
+    /**
+     * Persists one order; also the per-message fallback of OrderBatchConsumer
+     */
     @Transactional
     public void processCreateOrder(Order order) {
         log.info("Processing order from MQ for member: {}", order.getMemberId());
+        long start = System.nanoTime();
+        String eventId = order.getEventId();
+        if (order.getOrderId() == null) {
+            // message published before ids were assigned at admission
+            order.setOrderId(orderIdGenerator.nextId());
+        } else if (orderRepository.existsById(order.getOrderId())) {
+            // at-least-once delivery (outbox replay, redelivery): already persisted, stock was deducted once
+            log.warn("Order {} already exists, skipping duplicate message.", order.getOrderId());
+            purchaseMetrics.consumerHandled(PurchaseMetrics.CREATE_QUEUE, eventId, "duplicate", start);
+            return;
+        }
         try {
-            // 1. Save the order
+            // 1. Save the order (write-behind: flagged for StockWriteBehindFlusher in the same row)
+            order.setStockPending(writeBehind);
             Order savedOrder = orderRepository.save(order);
+            long step = purchaseMetrics.consumerStep(PurchaseMetrics.CREATE_QUEUE, "save", eventId, start);
 
-            // 2. Decrease stock in MySQL
-            int updatedRows = eventRepository.decreaseStock(order.getEventId(), order.getQuantity());
-            if (updatedRows == 0) {
+            // 2. Decrease stock in MySQL (write-behind: applied later, aggregated per event)
+            if (!writeBehind && eventRepository.decreaseStock(order.getEventId(), order.getQuantity()) == 0) {
                 // This case should be rare if Redis stock is accurate, but it's a good safeguard.
                 log.error("Failed to decrease MySQL stock for event: {}. Stock might be insufficient.", order.getEventId());
                 // Manually trigger rollback and restore Redis stock
                 throw new IllegalStateException("MySQL stock inconsistency detected.");
             }
+            step = purchaseMetrics.consumerStep(PurchaseMetrics.CREATE_QUEUE, "db_stock", eventId, step);
 
             // 3. Cache order status in Redis
             redisOrderService.setOrderCache(savedOrder.getMemberId(), savedOrder.getEventId(), savedOrder);
             log.info("Order processed and cached in Redis: {}", savedOrder.getOrderId());
+            step = purchaseMetrics.consumerStep(PurchaseMetrics.CREATE_QUEUE, "cache", eventId, step);
+
+            // 4. Schedule the payment deadline (Redis expiry bucket, or TTL queue in ttl-queue mode)
+            orderExpiryService.schedule(savedOrder);
+            log.info("Order {} scheduled for payment expiry check.", savedOrder.getOrderId());
+            step = purchaseMetrics.consumerStep(PurchaseMetrics.CREATE_QUEUE, "expiry", eventId, step);
 
-            // 4. Send to TTL queue for delayed cancellation check
-            rabbitTemplate.convertAndSend(
-                    RabbitConfig.ORDER_EXCHANGE,
-                    RabbitConfig.TTL_ROUTING_KEY,
-                    savedOrder
-            );
-            log.info("Order {} sent to TTL queue for cancellation check.", savedOrder.getOrderId());
+            // 5. Wake up the buyer's SSE / long-poll request on whichever node holds it, once the order is committed
+            orderResultNotifier.publishAfterCommit(savedOrder, OrderResultNotifier.SUCCESS);
+            purchaseMetrics.consumerStep(PurchaseMetrics.CREATE_QUEUE, "notify", eventId, step);
+            purchaseMetrics.consumerHandled(PurchaseMetrics.CREATE_QUEUE, eventId, "processed", start);
 
         } catch (Exception e) {
             log.error("Error processing create order: {}. Restoring Redis stock.", order.getOrderId(), e);
-            redisStockService.increaseStock(order.getProductId(), order.getQuantity());
+            redisStockService.increaseStock(order.getProductId(), order.getMemberId(), order.getQuantity());
             redisOrderService.deleteOrderCache(order.getMemberId(), order.getEventId());
+            orderResultNotifier.publish(order, OrderResultNotifier.FAILED);
+            purchaseMetrics.consumerHandled(PurchaseMetrics.CREATE_QUEUE, eventId, "failed", start);
             throw new AmqpRejectAndDontRequeueException("Error processing create order", e);
         }
     }
@@ -73,18 +112,23 @@ public class OrderConsumer {
      * @description Rabbit MQ Consumer for Cancel Order
      * @author Yang-Hsu
      */
-    @RabbitListener(queues = RabbitConfig.CANCEL_QUEUE)
+    @RabbitListener(id = RabbitConfig.CANCEL_LISTENER_ID, queues = RabbitConfig.CANCEL_QUEUE)
     @Transactional
-    public void processCancelOrder(Order orderMessage) {
-        log.info("Processing cancel order check for order: {}", orderMessage.getOrderId());
+    public void processCancelOrder(OrderExpiryMessage orderMessage) {
+        log.info("Processing cancel order check for order: {}", orderMessage.orderId());
+        long start = System.nanoTime();
+        String eventId = null;
         try {
             // 1. Lock the order row for update
-            Optional<Order> orderOpt = orderRepository.findByIdForUpdate(orderMessage.getOrderId());
+            Optional<Order> orderOpt = orderRepository.findByIdForUpdate(orderMessage.orderId());
             if (orderOpt.isEmpty()) {
-                log.warn("Order not found during cancel check: {}", orderMessage.getOrderId());
+                log.warn("Order not found during cancel check: {}", orderMessage.orderId());
+                purchaseMetrics.consumerHandled(PurchaseMetrics.CANCEL_QUEUE, null, "not_found", start);
                 return; // Order already deleted or never existed, acknowledge and finish.
             }
             Order order = orderOpt.get();
+            eventId = order.getEventId();
+            long step = purchaseMetrics.consumerStep(PurchaseMetrics.CANCEL_QUEUE, "lock", eventId, start);
 
             // 2. Check status
             if ("PENDING".equals(order.getStatus())) {
@@ -93,20 +137,26 @@ public class OrderConsumer {
                 // 3. Update status to FAILED
                 order.setStatus("FAILED");
                 orderRepository.save(order);
+                step = purchaseMetrics.consumerStep(PurchaseMetrics.CANCEL_QUEUE, "update", eventId, step);
 
                 // 4. Evict Redis order cache so the next read falls through to MySQL
                 redisOrderService.deleteOrderCache(order.getMemberId(), order.getEventId());
+                step = purchaseMetrics.consumerStep(PurchaseMetrics.CANCEL_QUEUE, "evict", eventId, step);
 
                 // 5. Restore Stock
                 eventRepository.increaseStock(order.getEventId(), order.getQuantity());
-                redisStockService.increaseStock(order.getProductId(), order.getQuantity());
+                redisStockService.increaseStock(order.getProductId(), order.getMemberId(), order.getQuantity());
+                purchaseMetrics.consumerStep(PurchaseMetrics.CANCEL_QUEUE, "restore", eventId, step);
                 log.info("Order {} cancelled and stock restored.", order.getOrderId());
+                purchaseMetrics.consumerHandled(PurchaseMetrics.CANCEL_QUEUE, eventId, "cancelled", start);
             } else {
                 log.info("Order {} status is {}, no need to cancel.", order.getOrderId(), order.getStatus());
+                purchaseMetrics.consumerHandled(PurchaseMetrics.CANCEL_QUEUE, eventId, "skipped", start);
             }
 
         } catch (Exception e) {
-            log.error("Error processing cancel order: {}. It will be retried.", orderMessage.getOrderId(), e);
+            purchaseMetrics.consumerHandled(PurchaseMetrics.CANCEL_QUEUE, eventId, "failed", start);
+            log.error("Error processing cancel order: {}. It will be retried.", orderMessage.orderId(), e);
             throw e;
         }
     }
@@ -0,0 +1,16 @@
+package com.flashsale.backend.mq.dispatch;
+
+import com.flashsale.backend.entity.Order;
+
+/**
+ * @description Transport that carries an accepted order (Redis stock already deducted) to the order consumer.
+ * 由 flashsale.order.dispatch.type 選擇實作：rabbit (預設) | redis-stream | ring
+ * @author Yang-Hsu
+ */
+public interface OrderDispatcher {
+
+    /**
+     * @return false when the order could not be queued (caller restores the stock it just deducted)
+     */
+    boolean dispatch(Order order);
+}
@@ -0,0 +1,28 @@
+package com.flashsale.backend.mq.dispatch;
+
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.producer.OrderMessagePublisher;
+import com.flashsale.backend.mq.producer.OrderOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * @description RabbitMQ transport: ORDER_EXCHANGE -> ORDER_QUEUE -> OrderConsumer (@RabbitListener)
+ * @author Yang-Hsu
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "flashsale.order.dispatch.type", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitOrderDispatcher implements OrderDispatcher {
+
+    private final OrderMessagePublisher orderMessagePublisher;
+    private final OrderOutbox orderOutbox;
+
+    @Override
+    public boolean dispatch(Order order) {
+        // Outbox mode: durable local record, relayed once the broker acks (survives a broker outage)
+        // Otherwise buffer for the async publisher; a nack / confirm timeout later restores the stock there
+        return orderOutbox.isEnabled() ? orderOutbox.append(order) : orderMessagePublisher.publish(order);
+    }
+}
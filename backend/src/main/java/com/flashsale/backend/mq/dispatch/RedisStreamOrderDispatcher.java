@@ -0,0 +1,271 @@
+package com.flashsale.backend.mq.dispatch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.consumer.OrderConsumer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * @description Redis Streams transport: XADD on the request thread, every node reads through one consumer group.
+ * 啟動時先處理本 consumer 尚未 ack 的 pending 訊息 (崩潰前已讀未完成)，再讀新訊息；
+ * 定期以 XPENDING + XCLAIM 接手閒置超過 claimMinIdleMs 的 pending (崩潰或換 hostname 的節點留下的)。
+ * Stream 只在 trimIntervalMs 時以 XTRIM MINID 修剪到最舊的 pending 之前，未投遞 / 未 ack 的訂單不會被刪除。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "flashsale.order.dispatch.type", havingValue = "redis-stream")
+@RequiredArgsConstructor
+public class RedisStreamOrderDispatcher implements OrderDispatcher {
+
+    public static final String GROUP = "order-consumers";
+    private static final String ORDER_FIELD = "order";
+
+    @Qualifier("redisTemplateDb0")
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final OrderConsumer orderConsumer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${flashsale.order.dispatch.stream.key:flashsale:order:stream}")
+    private String streamKey;
+
+    @Value("${flashsale.order.dispatch.stream.trimIntervalMs:60000}")
+    private long trimIntervalMs;
+
+    @Value("${flashsale.order.dispatch.stream.claimIntervalMs:30000}")
+    private long claimIntervalMs;
+
+    @Value("${flashsale.order.dispatch.stream.claimMinIdleMs:60000}")
+    private long claimMinIdleMs;
+
+    @Value("${flashsale.order.dispatch.stream.batchSize:50}")
+    private int batchSize;
+
+    @Value("${flashsale.order.dispatch.stream.blockMs:2000}")
+    private long blockMs;
+
+    private String consumerName;
+    private Thread worker;
+    private volatile boolean running;
+    private long nextClaimAt;
+    private long nextTrimAt;
+
+    @PostConstruct
+    public void start() {
+        consumerName = resolveConsumerName();
+        createGroup();
+        running = true;
+        worker = Thread.ofPlatform().name("order-stream-consumer").daemon().start(this::consumeLoop);
+        log.info("Order dispatch via Redis Stream {} (group {}, consumer {})", streamKey, GROUP, consumerName);
+    }
+
+    @Override
+    public boolean dispatch(Order order) {
+        try {
+            String json = objectMapper.writeValueAsString(order);
+            RecordId id = redisTemplate.opsForStream().add(StreamRecords.newRecord().in(streamKey).ofMap(Map.of(ORDER_FIELD, json)));
+            return id != null;
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize order for stream dispatch, member: {}", order.getMemberId(), e);
+            return false;
+        } catch (Exception e) {
+            log.error("XADD to {} failed for member: {}", streamKey, order.getMemberId(), e);
+            return false;
+        }
+    }
+
+    private void consumeLoop() {
+        // "0" = entries already delivered to this consumer but never acked (previous run crashed mid-batch)
+        boolean recovering = true;
+        while (running) {
+            try {
+                maintain();
+                ReadOffset offset = recovering ? ReadOffset.from("0") : ReadOffset.lastConsumed();
+                StreamReadOptions options = StreamReadOptions.empty().count(batchSize);
+                if (!recovering) {
+                    options = options.block(Duration.ofMillis(blockMs));
+                }
+                List<MapRecord<String, Object, Object>> records = readGroup(options, offset);
+                if (records == null || records.isEmpty()) {
+                    recovering = false;
+                    continue;
+                }
+                handle(records);
+            } catch (Exception e) {
+                if (running) {
+                    log.error("Order stream consumer error, retrying.", e);
+                    sleepQuietly(1000);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked") // single StreamOffset passed to the varargs parameter
+    private List<MapRecord<String, Object, Object>> readGroup(StreamReadOptions options, ReadOffset offset) {
+        return redisTemplate.opsForStream().read(Consumer.from(GROUP, consumerName), options, StreamOffset.create(streamKey, offset));
+    }
+
+    /**
+     * Claim and trim run on the consumer thread between batches, so this node never handles two batches at once
+     */
+    private void maintain() {
+        long now = System.currentTimeMillis();
+        if (now >= nextClaimAt) {
+            nextClaimAt = now + claimIntervalMs;
+            claimIdle();
+        }
+        if (now >= nextTrimAt) {
+            nextTrimAt = now + trimIntervalMs;
+            trimAcknowledged();
+        }
+    }
+
+    /**
+     * Pending entries of consumers that went away (crash, new hostname after a container restart) are taken over;
+     * XCLAIM's min-idle check makes sure only one node gets each entry
+     */
+    void claimIdle() {
+        PendingMessages pending = redisTemplate.opsForStream().pending(streamKey, GROUP, Range.unbounded(), batchSize);
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        List<RecordId> idle = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().toMillis() >= claimMinIdleMs) {
+                idle.add(message.getId());
+            }
+        }
+        if (idle.isEmpty()) {
+            return;
+        }
+        List<MapRecord<String, Object, Object>> claimed = redisTemplate.opsForStream().claim(streamKey, GROUP, consumerName,
+                Duration.ofMillis(claimMinIdleMs), idle.toArray(new RecordId[0]));
+        if (claimed != null && !claimed.isEmpty()) {
+            log.warn("Claimed {} idle pending order stream entries for consumer {}.", claimed.size(), consumerName);
+            handle(claimed);
+        }
+    }
+
+    private void handle(List<MapRecord<String, Object, Object>> records) {
+        RecordId[] ids = new RecordId[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            MapRecord<String, Object, Object> record = records.get(i);
+            ids[i] = record.getId();
+            try {
+                Order order = objectMapper.readValue((String) record.getValue().get(ORDER_FIELD), Order.class);
+                orderConsumer.processCreateOrder(order);
+            } catch (Exception e) {
+                // processCreateOrder already restored stock; park the entry like ORDER_DLQ does for RabbitMQ
+                log.error("Order stream entry {} failed, moving to {}:dlq", record.getId(), streamKey, e);
+                redisTemplate.opsForStream().add(StreamRecords.newRecord().in(streamKey + ":dlq").ofMap(record.getValue()));
+            }
+        }
+        redisTemplate.opsForStream().acknowledge(streamKey, GROUP, ids);
+    }
+
+    /**
+     * XTRIM MINID below everything the group still needs: the oldest pending entry, or the last delivered one
+     * when nothing is pending. last-delivered is read first, so entries delivered in between are newer than it.
+     */
+    void trimAcknowledged() {
+        StreamInfo.XInfoGroups groups = redisTemplate.opsForStream().groups(streamKey);
+        String lastDelivered = groups.stream()
+                .filter(group -> GROUP.equals(group.groupName()))
+                .map(StreamInfo.XInfoGroup::lastDeliveredId)
+                .findFirst()
+                .orElse(null);
+        if (lastDelivered == null || "0-0".equals(lastDelivered)) {
+            return;
+        }
+        PendingMessagesSummary summary = redisTemplate.opsForStream().pending(streamKey, GROUP);
+        String minId = lastDelivered;
+        if (summary != null && summary.getTotalPendingMessages() > 0 && compareIds(summary.minMessageId(), lastDelivered) < 0) {
+            minId = summary.minMessageId();
+        }
+        byte[] key = streamKey.getBytes(StandardCharsets.UTF_8);
+        byte[] threshold = minId.getBytes(StandardCharsets.UTF_8);
+        Object trimmed = redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.execute("XTRIM", key, "MINID".getBytes(StandardCharsets.UTF_8), threshold));
+        log.debug("Trimmed {} acknowledged entries from {} (MINID {}).", trimmed, streamKey, minId);
+    }
+
+    /**
+     * Stream ids are "ms-seq"
+     */
+    static int compareIds(String left, String right) {
+        int l = left.indexOf('-');
+        int r = right.indexOf('-');
+        int byTime = Long.compare(Long.parseLong(left.substring(0, l)), Long.parseLong(right.substring(0, r)));
+        return byTime != 0 ? byTime : Long.compare(Long.parseLong(left.substring(l + 1)), Long.parseLong(right.substring(r + 1)));
+    }
+
+    private void createGroup() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(streamKey.getBytes(StandardCharsets.UTF_8), GROUP, ReadOffset.from("0"), true));
+        } catch (Exception e) {
+            if (!String.valueOf(e.getMessage()).contains("BUSYGROUP") && !String.valueOf(e.getCause()).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stable per host so a restarted node finds its own pending entries right away; entries of a name that never
+     * comes back (container hostnames) are picked up by claimIdle instead
+     */
+    private static String resolveConsumerName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "consumer-" + UUID.randomUUID();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(blockMs + 1000);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.flashsale.backend.mq.dispatch;
+
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.consumer.OrderConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description Single-node in-process transport: bounded ring buffer (array-backed) drained in batches by consumer threads.
+ * 不經過 broker，適合小型活動；訂單只存在記憶體中，程序崩潰會遺失尚未處理的訂單。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "flashsale.order.dispatch.type", havingValue = "ring")
+@RequiredArgsConstructor
+public class RingBufferOrderDispatcher implements OrderDispatcher {
+
+    private final OrderConsumer orderConsumer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${flashsale.order.dispatch.ring.capacity:8192}")
+    private int capacity;
+
+    @Value("${flashsale.order.dispatch.ring.consumers:2}")
+    private int consumers;
+
+    @Value("${flashsale.order.dispatch.ring.batchSize:64}")
+    private int batchSize;
+
+    private BlockingQueue<Order> ring;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        ring = new ArrayBlockingQueue<>(capacity);
+        meterRegistry.gauge("flashsale.order.dispatch.ring.size", ring, BlockingQueue::size);
+        running = true;
+        for (int i = 0; i < consumers; i++) {
+            workers.add(Thread.ofPlatform().name("order-ring-consumer-" + i).daemon().start(this::drainLoop));
+        }
+        log.info("Order dispatch via in-process ring buffer (capacity {}, {} consumers)", capacity, consumers);
+    }
+
+    @Override
+    public boolean dispatch(Order order) {
+        return running && ring.offer(order);
+    }
+
+    private void drainLoop() {
+        List<Order> batch = new ArrayList<>(batchSize);
+        while (running || !ring.isEmpty()) {
+            try {
+                Order first = ring.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                ring.drainTo(batch, batchSize - 1);
+                for (Order order : batch) {
+                    try {
+                        orderConsumer.processCreateOrder(order);
+                    } catch (Exception e) {
+                        // processCreateOrder already restored stock and logged the cause
+                        log.error("In-process order dispatch failed for member: {}", order.getMemberId());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false; // workers finish what is already in the ring
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
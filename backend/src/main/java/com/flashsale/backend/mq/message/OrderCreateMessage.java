@@ -0,0 +1,32 @@
+package com.flashsale.backend.mq.message;
+
+import com.flashsale.backend.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * @description ORDER_QUEUE payload: only what OrderConsumer needs to persist the order (no JPA associations / audit fields)
+ * @author Yang-Hsu
+ */
+public record OrderCreateMessage(String orderId, String memberId, String productId, String eventId,
+                                 Integer quantity, BigDecimal totalPrice, String status, LocalDateTime expiresAt) {
+
+    public static OrderCreateMessage from(Order order) {
+        return new OrderCreateMessage(order.getOrderId(), order.getMemberId(), order.getProductId(), order.getEventId(),
+                order.getQuantity(), order.getTotalPrice(), order.getStatus(), order.getExpiresAt());
+    }
+
+    public Order toOrder() {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setMemberId(memberId);
+        order.setProductId(productId);
+        order.setEventId(eventId);
+        order.setQuantity(quantity);
+        order.setTotalPrice(totalPrice);
+        order.setStatus(status);
+        order.setExpiresAt(expiresAt);
+        return order;
+    }
+}
@@ -0,0 +1,14 @@
+package com.flashsale.backend.mq.message;
+
+import com.flashsale.backend.entity.Order;
+
+/**
+ * @description TTL_QUEUE / CANCEL_QUEUE payload: the cancel check reloads the order row, so the id is all it needs
+ * @author Yang-Hsu
+ */
+public record OrderExpiryMessage(String orderId) {
+
+    public static OrderExpiryMessage from(Order order) {
+        return new OrderExpiryMessage(order.getOrderId());
+    }
+}
@@ -0,0 +1,167 @@
+package com.flashsale.backend.mq.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.entity.Order;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.JacksonUtils;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.lang.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * @description Compact binary converter for the order queues.
+ * 格式：type(1) | version(1) | 固定欄位；id 以 UUID 16 bytes 存放。
+ * 舊版 producer 送出的 JSON Order (application/json) 仍可解碼，依 consumer queue 轉成對應的 message record。
+ * @author Yang-Hsu
+ */
+public class OrderMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-flashsale-order";
+
+    static final byte TYPE_CREATE = 1;
+    static final byte TYPE_EXPIRY = 2;
+    static final byte VERSION_1 = 1;
+
+    private static final byte ID_NULL = 0;
+    private static final byte ID_UUID = 1;
+    private static final byte ID_STRING = 2;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final byte NULL_SCALE = Byte.MIN_VALUE;
+
+    private final ObjectMapper legacyMapper = JacksonUtils.enhancedObjectMapper();
+
+    @Override
+    @NonNull
+    public Message toMessage(@NonNull Object object, @NonNull MessageProperties messageProperties) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (object instanceof OrderCreateMessage create) {
+                out.writeByte(TYPE_CREATE);
+                out.writeByte(VERSION_1);
+                writeId(out, create.orderId());
+                writeId(out, create.memberId());
+                writeId(out, create.productId());
+                writeId(out, create.eventId());
+                out.writeInt(create.quantity() != null ? create.quantity() : 0);
+                writeDecimal(out, create.totalPrice());
+                out.writeUTF(create.status() != null ? create.status() : "");
+                out.writeLong(create.expiresAt() != null ? create.expiresAt().toInstant(ZoneOffset.UTC).toEpochMilli() : NULL_TIME);
+            } else if (object instanceof OrderExpiryMessage expiry) {
+                out.writeByte(TYPE_EXPIRY);
+                out.writeByte(VERSION_1);
+                writeId(out, expiry.orderId());
+            } else {
+                throw new MessageConversionException("Unsupported order message type: " + object.getClass().getName());
+            }
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to encode order message", e);
+        }
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(bytes.size());
+        return new Message(bytes.toByteArray(), messageProperties);
+    }
+
+    @Override
+    @NonNull
+    public Object fromMessage(@NonNull Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        if (!CONTENT_TYPE.equals(properties.getContentType())) {
+            return fromLegacyJson(message);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message.getBody()))) {
+            byte type = in.readByte();
+            byte version = in.readByte();
+            if (version != VERSION_1) {
+                throw new MessageConversionException("Unsupported order message version " + version);
+            }
+            return switch (type) {
+                case TYPE_CREATE -> new OrderCreateMessage(readId(in), readId(in), readId(in), readId(in), in.readInt(),
+                        readDecimal(in), emptyToNull(in.readUTF()), readTime(in.readLong()));
+                case TYPE_EXPIRY -> new OrderExpiryMessage(readId(in));
+                default -> throw new MessageConversionException("Unknown order message type " + type);
+            };
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to decode order message", e);
+        }
+    }
+
+    /**
+     * Messages still in flight from before the rollout carry the whole Order entity as JSON
+     */
+    private Object fromLegacyJson(Message message) {
+        try {
+            Order order = legacyMapper.readValue(message.getBody(), Order.class);
+            return RabbitConfig.CANCEL_QUEUE.equals(message.getMessageProperties().getConsumerQueue())
+                    ? OrderExpiryMessage.from(order)
+                    : OrderCreateMessage.from(order);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to decode legacy JSON order message", e);
+        }
+    }
+
+    private static void writeId(DataOutputStream out, String id) throws IOException {
+        if (id == null) {
+            out.writeByte(ID_NULL);
+            return;
+        }
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            uuid = null;
+        }
+        if (uuid != null && uuid.toString().equals(id)) {
+            out.writeByte(ID_UUID);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            out.writeByte(ID_STRING);
+            out.writeUTF(id);
+        }
+    }
+
+    private static String readId(DataInputStream in) throws IOException {
+        return switch (in.readByte()) {
+            case ID_NULL -> null;
+            case ID_UUID -> new UUID(in.readLong(), in.readLong()).toString();
+            case ID_STRING -> in.readUTF();
+            default -> throw new MessageConversionException("Corrupt id field in order message");
+        };
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_SCALE);
+            return;
+        }
+        out.writeByte(value.scale());
+        out.writeLong(value.unscaledValue().longValueExact());
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        byte scale = in.readByte();
+        return scale == NULL_SCALE ? null : new BigDecimal(BigInteger.valueOf(in.readLong()), scale);
+    }
+
+    private static LocalDateTime readTime(long epochMilli) {
+        return epochMilli == NULL_TIME ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(epochMilli, 1000),
+                Math.floorMod(epochMilli, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,331 @@
+package com.flashsale.backend.mq.producer;
+
+import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.message.OrderCreateMessage;
+import com.flashsale.backend.service.OrderResultNotifier;
+import com.flashsale.backend.service.RedisStockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @description Asynchronous order publisher: createOrder only buffers the message, a background sender
+ * publishes batches on one channel and tracks publisher confirms by correlation id.
+ * Redis 庫存只在 broker 明確 nack / 退回 (returned) 時才回補。confirm 逾時不代表訊息遺失 (可能只是 ack 遲到)，
+ * 因此逾時的訂單改為重新發送 (同一個 orderId，consumer 以 existsById 去重)，之後該訂單不再因 nack 回補庫存。
+ * 重送採指數退避 (retryBackoffMs 起跳，上限 retryMaxBackoffMs)；超過 maxRetries 次仍未 ack 的訂單停放 (parked) 並記錄，
+ * 不回補庫存 (先前的嘗試可能已入列)，交由人工對帳。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderMessagePublisher {
+
+    private static final String METRIC_PREFIX = "flashsale.order.publisher";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final RedisStockService redisStockService;
+    private final OrderResultNotifier orderResultNotifier;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${flashsale.order.publisher.bufferCapacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${flashsale.order.publisher.batchSize:100}")
+    private int batchSize;
+
+    @Value("${flashsale.order.publisher.confirmTimeoutMs:10000}")
+    private long confirmTimeoutMs;
+
+    @Value("${flashsale.order.publisher.retryBackoffMs:100}")
+    private long retryBackoffMs;
+
+    @Value("${flashsale.order.publisher.retryMaxBackoffMs:5000}")
+    private long retryMaxBackoffMs;
+
+    @Value("${flashsale.order.publisher.maxRetries:10}")
+    private int maxRetries;
+
+    private BlockingQueue<Order> buffer;
+    private final Map<String, PendingConfirm> pending = new ConcurrentHashMap<>();
+    // Re-publishes go ahead of new orders once due; bounded by what was in flight
+    private final Queue<Retry> retries = new PriorityBlockingQueue<>(16, Comparator.comparingLong(Retry::dueAtNanos));
+    // orderId -> retries so far, for orders with an attempt that timed out: it may have reached the queue,
+    // so their stock is never restored
+    private final Map<String, Integer> inDoubt = new ConcurrentHashMap<>();
+    // In-doubt orders that ran out of retries, kept for reconciliation
+    private final Map<String, Order> parked = new ConcurrentHashMap<>();
+    private Timer confirmTimer;
+    private Thread sender;
+    private volatile boolean running;
+
+    private record PendingConfirm(Order order, long sentAtNanos) {
+    }
+
+    private record Retry(Order order, long dueAtNanos) {
+    }
+
+    /**
+     * Per-message result of {@link #sendAndAwaitConfirms(List)}
+     */
+    public enum ConfirmOutcome {
+        ACK, NACK, RETURNED, TIMEOUT
+    }
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        confirmTimer = Timer.builder(METRIC_PREFIX + ".confirm")
+                .description("Publish to broker confirm latency")
+                .register(meterRegistry);
+        meterRegistry.gauge(METRIC_PREFIX + ".buffered", buffer, BlockingQueue::size);
+        meterRegistry.gauge(METRIC_PREFIX + ".inflight", pending, Map::size);
+        meterRegistry.gauge(METRIC_PREFIX + ".indoubt", inDoubt, Map::size);
+        meterRegistry.gauge(METRIC_PREFIX + ".parked", parked, Map::size);
+        running = true;
+        sender = Thread.ofPlatform().name("order-publisher").daemon().start(this::sendLoop);
+    }
+
+    /**
+     * @return false when the buffer is full (caller restores the stock it just deducted)
+     */
+    public boolean publish(Order order) {
+        if (!running || !buffer.offer(order)) {
+            meterRegistry.counter(METRIC_PREFIX + ".result", "result", "rejected").increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void sendLoop() {
+        List<Order> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty() || !retries.isEmpty()) {
+            try {
+                drainDueRetries(batch, System.nanoTime());
+                if (batch.isEmpty()) {
+                    Order first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                buffer.drainTo(batch, batchSize - batch.size());
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Order publisher loop error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Moves retries whose backoff has elapsed into the batch; the sender is the only consumer of the queue,
+     * so whatever poll() returns after a due head is due as well
+     */
+    int drainDueRetries(List<Order> batch, long nowNanos) {
+        int drained = 0;
+        Retry head;
+        while (batch.size() < batchSize && (head = retries.peek()) != null && head.dueAtNanos() - nowNanos <= 0) {
+            batch.add(retries.poll().order());
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Publishes the whole batch on one channel; confirms arrive asynchronously on the CorrelationData futures
+     */
+    void sendBatch(List<Order> batch) {
+        AtomicInteger sent = new AtomicInteger();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (Order order : batch) {
+                    CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+                    pending.put(correlation.getId(), new PendingConfirm(order, System.nanoTime()));
+                    try {
+                        operations.convertAndSend(RabbitConfig.ORDER_EXCHANGE, RabbitConfig.ORDER_ROUTING_KEY, OrderCreateMessage.from(order), correlation);
+                    } catch (RuntimeException e) {
+                        pending.remove(correlation.getId());
+                        throw e;
+                    }
+                    correlation.getFuture().whenComplete((confirm, ex) ->
+                            onConfirm(correlation, ex == null && confirm.isAck(), ex != null ? ex.getMessage() : confirm.getReason()));
+                    sent.incrementAndGet();
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Messages already on the channel still get a confirm (or a nack when the channel closes)
+            log.error("Failed to publish order batch ({} of {} sent), failing the rest.", sent.get(), batch.size(), e);
+            for (int i = sent.get(); i < batch.size(); i++) {
+                failOrRetry(batch.get(i), "send_failed");
+            }
+        }
+    }
+
+    /**
+     * Synchronous variant for callers that keep their own copy of the message (the outbox relay):
+     * publishes the batch on one channel and waits up to confirmTimeoutMs for every confirm. Stock is not touched here.
+     *
+     * @return one outcome per message, in batch order
+     */
+    public List<ConfirmOutcome> sendAndAwaitConfirms(List<Order> batch) {
+        List<CorrelationData> correlations = new ArrayList<>(batch.size());
+        long start = System.nanoTime();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (Order order : batch) {
+                    CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+                    operations.convertAndSend(RabbitConfig.ORDER_EXCHANGE, RabbitConfig.ORDER_ROUTING_KEY, OrderCreateMessage.from(order), correlation);
+                    correlations.add(correlation);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to publish batch ({} of {} sent): {}", correlations.size(), batch.size(), e.getMessage());
+        }
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        List<ConfirmOutcome> outcomes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ConfirmOutcome outcome = i < correlations.size() ? awaitConfirm(correlations.get(i), deadline) : ConfirmOutcome.NACK;
+            if (outcome == ConfirmOutcome.ACK) {
+                confirmTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            meterRegistry.counter(METRIC_PREFIX + ".result", "result", outcome.name().toLowerCase()).increment();
+            outcomes.add(outcome);
+        }
+        return outcomes;
+    }
+
+    private static ConfirmOutcome awaitConfirm(CorrelationData correlation, long deadlineNanos) {
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture().get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!confirm.isAck()) {
+                return ConfirmOutcome.NACK;
+            }
+            return correlation.getReturned() != null ? ConfirmOutcome.RETURNED : ConfirmOutcome.ACK;
+        } catch (TimeoutException e) {
+            return ConfirmOutcome.TIMEOUT;
+        } catch (ExecutionException e) {
+            return ConfirmOutcome.NACK;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ConfirmOutcome.TIMEOUT;
+        }
+    }
+
+    private void onConfirm(CorrelationData correlation, boolean ack, String reason) {
+        PendingConfirm confirm = pending.remove(correlation.getId());
+        if (confirm == null) {
+            // Attempt already timed out and was re-published; the consumer de-duplicates by orderId
+            log.info("Late {} for superseded correlation {}, ignored.", ack ? "ack" : "nack", correlation.getId());
+            return;
+        }
+        confirmTimer.record(System.nanoTime() - confirm.sentAtNanos(), TimeUnit.NANOSECONDS);
+        Order order = confirm.order();
+        if (ack && correlation.getReturned() == null) {
+            inDoubt.remove(order.getOrderId());
+            meterRegistry.counter(METRIC_PREFIX + ".result", "result", "ack").increment();
+            return;
+        }
+        if (ack) {
+            // Unroutable: no queue took this attempt, nor any earlier one over the same binding
+            inDoubt.remove(order.getOrderId());
+            log.error("Order message {} returned for member {} (reason: {}), restoring Redis stock.", order.getOrderId(),
+                    order.getMemberId(), correlation.getReturned().getReplyText());
+            fail(order, "returned");
+            return;
+        }
+        log.error("Order message {} nacked for member {} (reason: {}).", order.getOrderId(), order.getMemberId(), reason);
+        failOrRetry(order, "nack");
+    }
+
+    /**
+     * Confirms that never arrived (channel closed, broker stalled, ack still on its way): the message may be queued,
+     * so the order is published again instead of restoring its stock
+     */
+    @Scheduled(fixedDelayString = "${flashsale.order.publisher.sweepIntervalMs:1000}")
+    public void sweepTimedOut() {
+        long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        pending.forEach((id, confirm) -> {
+            if (confirm.sentAtNanos() < deadline && pending.remove(id, confirm)) {
+                log.warn("No publisher confirm for order {} within {} ms, publishing it again.", confirm.order().getOrderId(), confirmTimeoutMs);
+                meterRegistry.counter(METRIC_PREFIX + ".result", "result", "timeout").increment();
+                retryLater(confirm.order(), "timeout");
+            }
+        });
+    }
+
+    /**
+     * Definite failure of an order nobody can have received yet restores its stock; an order in doubt is retried
+     */
+    private void failOrRetry(Order order, String result) {
+        if (inDoubt.containsKey(order.getOrderId())) {
+            retryLater(order, result);
+            return;
+        }
+        fail(order, result);
+    }
+
+    /**
+     * Schedules the next attempt with exponential backoff; past maxRetries the order is parked instead
+     */
+    private void retryLater(Order order, String result) {
+        int attempt = inDoubt.merge(order.getOrderId(), 1, Integer::sum);
+        if (attempt > maxRetries) {
+            inDoubt.remove(order.getOrderId());
+            parked.put(order.getOrderId(), order);
+            meterRegistry.counter(METRIC_PREFIX + ".result", "result", "parked").increment();
+            log.error("Order {} for member {} still unconfirmed after {} retries ({}), parked for reconciliation; stock not restored.",
+                    order.getOrderId(), order.getMemberId(), maxRetries, result);
+            return;
+        }
+        long backoffMs = Math.min(retryMaxBackoffMs, retryBackoffMs << Math.min(attempt - 1, 30));
+        meterRegistry.counter(METRIC_PREFIX + ".result", "result", result + "_retried").increment();
+        retries.add(new Retry(order, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs)));
+    }
+
+    private void fail(Order order, String result) {
+        meterRegistry.counter(METRIC_PREFIX + ".result", "result", result).increment();
+        redisStockService.increaseStock(order.getProductId(), order.getMemberId(), order.getQuantity());
+        // the order never reaches the consumer, so nobody else would answer the buyer's SSE / long-poll
+        orderResultNotifier.publish(order, OrderResultNotifier.FAILED);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false; // sender drains what is already buffered, then exits
+        if (sender != null) {
+            sender.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.flashsale.backend.mq.producer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashsale.backend.dto.response.OutboxStatusResponse;
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.producer.OrderMessagePublisher.ConfirmOutcome;
+import com.flashsale.backend.service.OrderResultNotifier;
+import com.flashsale.backend.service.RedisStockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * @description Node-local append-only outbox in a memory-mapped file (flashsale.order.outbox.enabled).
+ * createOrder 扣完 Redis 庫存後只寫入本地檔案即回應；背景 relay 批次送到 ORDER_EXCHANGE，broker ack 後才推進 commit offset。
+ * Broker 中斷時訂單留在檔案內等待重送，程序崩潰重啟後從 commit offset 重放。
+ * <p>
+ * File layout: header [magic:int][version:int][writeOffset:long][commitOffset:long] padded to 64 bytes,
+ * then records [length:int][crc32:int][payload:json]; a zero length marks the end.
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderOutbox {
+
+    public enum FsyncPolicy {
+        ALWAYS,   // force after every append (survives power loss, slowest)
+        INTERVAL, // force every fsyncIntervalMs (survives a process crash, small power-loss window)
+        NEVER     // leave it to the OS page cache
+    }
+
+    private static final int MAGIC = 0x4F42_4F58; // "OBOX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int WRITE_OFFSET_POS = 8;
+    private static final int COMMIT_OFFSET_POS = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int END_MARKER_SIZE = 4;
+
+    private final OrderMessagePublisher orderMessagePublisher;
+    private final RedisStockService redisStockService;
+    private final OrderResultNotifier orderResultNotifier;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${flashsale.order.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${flashsale.order.outbox.path:./data/order-outbox.dat}")
+    private String path;
+
+    @Value("${flashsale.order.outbox.capacityBytes:67108864}")
+    private int capacityBytes;
+
+    @Value("${flashsale.order.outbox.fsync:INTERVAL}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${flashsale.order.outbox.relayBatchSize:100}")
+    private int relayBatchSize;
+
+    @Value("${flashsale.order.outbox.maxBackoffMs:5000}")
+    private long maxBackoffMs;
+
+    private record Entry(long start, long end, Order order) {
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    // Logical positions (physical = logical - shift) so compaction never invalidates offsets held by the relay
+    private long shift;
+    private long writePos;
+    private long commitPos;
+    private long relayPos;
+    private long pendingRecords;
+
+    private final AtomicLong relayedTotal = new AtomicLong();
+    private volatile boolean dirty;
+    private volatile boolean running;
+    private volatile String lastRelayError;
+    private volatile LocalDateTime lastRelayAt;
+    private Thread relay;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path file = Path.of(path).toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(WRITE_OFFSET_POS, HEADER_SIZE);
+            buffer.putLong(COMMIT_OFFSET_POS, HEADER_SIZE);
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.force();
+        }
+        // The header's writeOffset may lag the data under a relaxed fsync policy; the CRC-checked records are the truth
+        long commit = buffer.getLong(COMMIT_OFFSET_POS);
+        long end = commit;
+        int records = 0;
+        for (byte[] payload = readPayload(end); payload != null; payload = readPayload(end)) {
+            end += RECORD_HEADER_SIZE + payload.length;
+            records++;
+        }
+        commitPos = commit;
+        relayPos = commit;
+        writePos = end;
+        pendingRecords = records;
+        buffer.putLong(WRITE_OFFSET_POS, end);
+        if (records > 0) {
+            log.warn("Order outbox {} has {} unsent records from a previous run, replaying.", file, records);
+        }
+        meterRegistry.gauge("flashsale.order.outbox.pending", this, outbox -> outbox.pendingRecords);
+        running = true;
+        relay = Thread.ofPlatform().name("order-outbox-relay").daemon().start(this::relayLoop);
+        log.info("Order outbox opened: {} ({} bytes, fsync={})", file, capacityBytes, fsyncPolicy);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return false when the outbox is full or closed (caller restores the stock it just deducted)
+     */
+    public boolean append(Order order) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize order for the outbox, member: {}", order.getMemberId(), e);
+            return false;
+        }
+        int size = RECORD_HEADER_SIZE + payload.length;
+        lock.lock();
+        try {
+            if (!running) {
+                return false;
+            }
+            if (physical(writePos) + size + END_MARKER_SIZE > capacityBytes) {
+                compact();
+                if (physical(writePos) + size + END_MARKER_SIZE > capacityBytes) {
+                    log.error("Order outbox full ({} records pending), rejecting order.", pendingRecords);
+                    return false;
+                }
+            }
+            int at = physical(writePos);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            // End marker first and length last: a torn write is never mistaken for a record
+            buffer.putInt(at + size, 0);
+            buffer.put(at + RECORD_HEADER_SIZE, payload);
+            buffer.putInt(at + 4, (int) crc.getValue());
+            buffer.putInt(at, payload.length);
+            writePos += size;
+            pendingRecords++;
+            buffer.putLong(WRITE_OFFSET_POS, physical(writePos));
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                buffer.force();
+            } else {
+                dirty = true;
+            }
+            appended.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${flashsale.order.outbox.fsyncIntervalMs:100}")
+    public void flush() {
+        if (running && fsyncPolicy == FsyncPolicy.INTERVAL && dirty) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    private void relayLoop() {
+        long backoffMs = 0;
+        while (running) {
+            try {
+                List<Entry> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                List<ConfirmOutcome> outcomes = orderMessagePublisher.sendAndAwaitConfirms(batch.stream().map(Entry::order).toList());
+                int done = 0;
+                for (; done < batch.size(); done++) {
+                    ConfirmOutcome outcome = outcomes.get(done);
+                    if (outcome == ConfirmOutcome.RETURNED) {
+                        // Unroutable is permanent, retrying would not help
+                        Order order = batch.get(done).order();
+                        log.error("Outbox order for member {} was returned by the broker, restoring Redis stock.", order.getMemberId());
+                        redisStockService.increaseStock(order.getProductId(), order.getMemberId(), order.getQuantity());
+                        orderResultNotifier.publish(order, OrderResultNotifier.FAILED);
+                    } else if (outcome != ConfirmOutcome.ACK) {
+                        lastRelayError = outcome + " at " + LocalDateTime.now();
+                        break;
+                    }
+                }
+                if (done > 0) {
+                    commit(batch.get(done - 1).end(), done);
+                }
+                if (done < batch.size()) {
+                    rewind(batch.get(done).start());
+                    backoffMs = Math.min(maxBackoffMs, backoffMs == 0 ? 100 : backoffMs * 2);
+                    log.warn("Outbox relay stalled ({}), {} records pending, retrying in {} ms.", lastRelayError, pendingRecords, backoffMs);
+                    TimeUnit.MILLISECONDS.sleep(backoffMs);
+                } else {
+                    backoffMs = 0;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                lastRelayError = e.getMessage();
+                log.error("Outbox relay error", e);
+            }
+        }
+    }
+
+    private List<Entry> nextBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            if (relayPos == writePos) {
+                appended.await(100, TimeUnit.MILLISECONDS);
+            }
+            List<Entry> batch = new ArrayList<>(relayBatchSize);
+            while (relayPos < writePos && batch.size() < relayBatchSize) {
+                byte[] payload = readPayload(physical(relayPos));
+                if (payload == null) {
+                    break; // cannot happen below writePos unless the file was modified externally
+                }
+                long start = relayPos;
+                long end = start + RECORD_HEADER_SIZE + payload.length;
+                Order order;
+                try {
+                    order = objectMapper.readValue(payload, Order.class);
+                } catch (IOException e) {
+                    if (!batch.isEmpty()) {
+                        break; // send what we have, the bad record heads the next batch
+                    }
+                    // A batch always starts at the commit offset, so the bad record can be committed on its own
+                    log.error("Unreadable outbox record at {}, dropping it.", start, e);
+                    relayPos = end;
+                    commit(end, 1);
+                    continue;
+                }
+                relayPos = end;
+                batch.add(new Entry(start, end, order));
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void commit(long position, int records) {
+        lock.lock();
+        try {
+            commitPos = position;
+            pendingRecords = Math.max(0, pendingRecords - records);
+            relayedTotal.addAndGet(records);
+            lastRelayAt = LocalDateTime.now();
+            if (commitPos == writePos) {
+                compact(); // drained: rewind to the start of the file
+            } else {
+                buffer.putLong(COMMIT_OFFSET_POS, physical(commitPos));
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rewind(long position) {
+        lock.lock();
+        try {
+            relayPos = position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the unsent tail to the start of the file. Only done when the tail plus its end marker fit before
+     * the tail's old location, so a crash mid-copy still leaves the old header pointing at intact records.
+     */
+    private void compact() {
+        int from = physical(commitPos);
+        int length = (int) (writePos - commitPos);
+        // The end marker written after the copy must not reach the first record at `from` (its length field)
+        if (from == HEADER_SIZE || length + END_MARKER_SIZE > from - HEADER_SIZE) {
+            return;
+        }
+        if (length > 0) {
+            byte[] tail = new byte[length];
+            buffer.get(from, tail);
+            buffer.put(HEADER_SIZE, tail);
+        }
+        buffer.putInt(HEADER_SIZE + length, 0);
+        buffer.force();
+        shift += from - HEADER_SIZE;
+        buffer.putLong(COMMIT_OFFSET_POS, HEADER_SIZE);
+        buffer.putLong(WRITE_OFFSET_POS, physical(writePos));
+        buffer.force();
+    }
+
+    private byte[] readPayload(long at) {
+        if (at + RECORD_HEADER_SIZE > capacityBytes) {
+            return null;
+        }
+        int length = buffer.getInt((int) at);
+        if (length <= 0 || at + RECORD_HEADER_SIZE + length > capacityBytes) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get((int) at + RECORD_HEADER_SIZE, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt((int) at + 4) ? payload : null;
+    }
+
+    private int physical(long logical) {
+        return (int) (logical - shift);
+    }
+
+    public OutboxStatusResponse getStatus() {
+        if (!enabled) {
+            return OutboxStatusResponse.builder().enabled(false).build();
+        }
+        lock.lock();
+        try {
+            return OutboxStatusResponse.builder()
+                    .enabled(true)
+                    .path(Path.of(path).toAbsolutePath().toString())
+                    .fsyncPolicy(fsyncPolicy.name())
+                    .capacityBytes(capacityBytes)
+                    .pendingBytes(writePos - commitPos)
+                    .pendingRecords(pendingRecords)
+                    .relayedTotal(relayedTotal.get())
+                    .lastRelayAt(lastRelayAt)
+                    .lastRelayError(lastRelayError)
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false; // pending records stay in the file and are replayed on the next start
+        if (relay != null) {
+            relay.interrupt();
+            relay.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        lock.lock();
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
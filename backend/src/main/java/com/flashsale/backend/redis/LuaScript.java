@@ -0,0 +1,27 @@
+package com.flashsale.backend.redis;
+
+import lombok.Getter;
+import org.springframework.data.redis.connection.ReturnType;
+
+/**
+ * @description Lua scripts managed by RedisScriptRegistry (sources under classpath:lua/)
+ * @author Yang-Hsu
+ */
+@Getter
+public enum LuaScript {
+    DECREASE_STOCK("lua/decrease_stock.lua", ReturnType.INTEGER),
+    INCREASE_STOCK("lua/increase_stock.lua", ReturnType.INTEGER),
+    BATCH_INCREASE_STOCK("lua/batch_increase_stock.lua", ReturnType.INTEGER),
+    LEASE_STOCK("lua/lease_stock.lua", ReturnType.INTEGER),
+    MEMBER_QUOTA("lua/member_quota.lua", ReturnType.INTEGER),
+    BATCH_DECREASE_STOCK("lua/batch_decrease_stock.lua", ReturnType.MULTI),
+    CLAIM_EXPIRED_ORDERS("lua/claim_expired_orders.lua", ReturnType.MULTI);
+
+    private final String location;
+    private final ReturnType returnType;
+
+    LuaScript(String location, ReturnType returnType) {
+        this.location = location;
+        this.returnType = returnType;
+    }
+}
@@ -0,0 +1,144 @@
+package com.flashsale.backend.redis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DigestUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description Loads every LuaScript once (SCRIPT LOAD) and invokes it by SHA (EVALSHA).
+ * 若 Redis 重啟導致 script cache 清空 (NOSCRIPT)，自動重新載入後重試一次。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisScriptRegistry {
+
+    @Qualifier("redisTemplateDb0") // Script cache is server-wide, db index does not matter
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<LuaScript, LoadedScript> scripts = new EnumMap<>(LuaScript.class);
+
+    private record LoadedScript(byte[] source, String sha1, Timer successTimer, Timer errorTimer, Counter reloadCounter) {
+    }
+
+    @PostConstruct
+    public void init() {
+        for (LuaScript script : LuaScript.values()) {
+            String source = readSource(script);
+            String tag = script.name().toLowerCase();
+            scripts.put(script, new LoadedScript(
+                    source.getBytes(StandardCharsets.UTF_8),
+                    DigestUtils.sha1DigestAsHex(source),
+                    Timer.builder("flashsale.redis.script").tag("script", tag).tag("outcome", "success").register(meterRegistry),
+                    Timer.builder("flashsale.redis.script").tag("script", tag).tag("outcome", "error").register(meterRegistry),
+                    Counter.builder("flashsale.redis.script.reload").tag("script", tag).register(meterRegistry)));
+        }
+    }
+
+    /**
+     * Pre-load at startup; a failure here is not fatal since execute() loads on NOSCRIPT
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        scripts.forEach((script, loaded) -> {
+            try {
+                load(loaded);
+                log.info("Lua script loaded: {} sha1={}", script, loaded.sha1());
+            } catch (Exception e) {
+                log.warn("Failed to pre-load Lua script {}, will load on first use: {}", script, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * EVALSHA the script; result type follows LuaScript.returnType (INTEGER → Long, MULTI → List)
+     */
+    public <T> T execute(LuaScript script, List<String> keys, Object... args) {
+        LoadedScript loaded = scripts.get(script);
+        byte[][] keysAndArgs = toBytes(keys, args);
+        long start = System.nanoTime();
+        try {
+            T result;
+            try {
+                result = evalSha(script, loaded, keys.size(), keysAndArgs);
+            } catch (Exception e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+                log.warn("NOSCRIPT for {} (Redis restarted or script cache flushed), reloading.", script);
+                load(loaded);
+                loaded.reloadCounter().increment();
+                result = evalSha(script, loaded, keys.size(), keysAndArgs);
+            }
+            loaded.successTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            loaded.errorTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private <T> T evalSha(LuaScript script, LoadedScript loaded, int numKeys, byte[][] keysAndArgs) {
+        return redisTemplate.execute((RedisCallback<T>) connection ->
+                connection.scriptingCommands().evalSha(loaded.sha1(), script.getReturnType(), numKeys, keysAndArgs));
+    }
+
+    private void load(LoadedScript loaded) {
+        String sha1 = redisTemplate.execute((RedisCallback<String>) connection ->
+                connection.scriptingCommands().scriptLoad(loaded.source()));
+        if (!loaded.sha1().equals(sha1)) {
+            log.warn("SCRIPT LOAD returned unexpected sha1 {} (expected {})", sha1, loaded.sha1());
+        }
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[][] toBytes(List<String> keys, Object[] args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        int i = 0;
+        for (String key : keys) {
+            keysAndArgs[i++] = key.getBytes(StandardCharsets.UTF_8);
+        }
+        for (Object arg : args) {
+            keysAndArgs[i++] = String.valueOf(arg).getBytes(StandardCharsets.UTF_8);
+        }
+        return keysAndArgs;
+    }
+
+    private static String readSource(LuaScript script) {
+        try {
+            return StreamUtils.copyToString(new ClassPathResource(script.getLocation()).getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read Lua script " + script.getLocation(), e);
+        }
+    }
+}
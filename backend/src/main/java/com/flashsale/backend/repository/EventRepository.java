@@ -40,6 +40,14 @@ public interface EventRepository extends JpaRepository<Event, String> {
     @Query("UPDATE Event e SET e.stock = e.stock + :qty WHERE e.eventId = :id")
     void increaseStock(@Param("id") String id, @Param("qty") Integer qty);
 
+    /**
+     * @description Write-behind flush: aggregated delta of one event, no stock check (Redis already admitted these orders)
+     * @author Yang-Hsu
+     */
+    @Modifying
+    @Query("UPDATE Event e SET e.stock = e.stock - :qty WHERE e.eventId = :id")
+    int applyStockDelta(@Param("id") String id, @Param("qty") Integer qty);
+
     /**
      * @description When update Product Information check
      * @author Yang-Hsu
@@ -87,7 +95,10 @@ public interface EventRepository extends JpaRepository<Event, String> {
             "e.price, " +
             "e.stock, " +
             "e.startTime, " +
-            "e.endTime) " +
+            "e.endTime, " +
+            "e.stockSegments, " +
+            "e.maxPerMember, " +
+            "e.paymentWindowMinutes) " +
             "FROM Event e " +
             "JOIN e.product p " +
             "WHERE e.status = 1 AND p.status = 1 " +
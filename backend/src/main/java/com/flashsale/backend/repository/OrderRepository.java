@@ -6,9 +6,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -27,6 +31,38 @@ public interface OrderRepository extends JpaRepository<Order, String> {
     @Query("SELECT o FROM Order o WHERE o.orderId = :orderId")
     Optional<Order> findByIdForUpdate(@Param("orderId") String orderId);
 
+    /**
+     * @description Lock the still-PENDING orders among ids (bulk expiry cancellation)
+     * @author Yang-Hsu
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.orderId IN :ids AND o.status = 'PENDING'")
+    List<Order> findPendingByIdsForUpdate(@Param("ids") Collection<String> ids);
+
+    /**
+     * @description Set-based PENDING → FAILED transition; the status condition keeps a concurrent payment safe
+     * @author Yang-Hsu
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = 'FAILED', o.version = o.version + 1, o.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE o.orderId IN :ids AND o.status = 'PENDING'")
+    int markPendingFailed(@Param("ids") Collection<String> ids);
+
+    /**
+     * @description Write-behind: these orders are now reflected in events.stock
+     * @author Yang-Hsu
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.stockPending = false WHERE o.orderId IN :ids")
+    int clearStockPending(@Param("ids") Collection<String> ids);
+
+    /**
+     * @description Write-behind lag: creation time of the oldest order not yet applied to events.stock
+     * @author Yang-Hsu
+     */
+    @Query("SELECT MIN(o.createdAt) FROM Order o WHERE o.stockPending = true")
+    LocalDateTime findOldestStockPendingCreatedAt();
+
     /**
      * @description findByIdWithDetails
      * @author Yang-Hsu
@@ -6,17 +6,30 @@ import com.flashsale.backend.repository.EventRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @description DashboardService — reads Redis DB0 stock data for admin dashboard
+ * SCAN 取代 KEYS，欄位以 pipeline HMGET 讀取，MySQL 庫存一次 findAllById；
+ * 結果保留 snapshotTtlMs，同時刷新的管理員共用同一次計算 (single-flight)。
  * @author Yang-Hsu
  * @date 2026/4/2
  */
@@ -30,50 +43,184 @@ public class DashboardService {
 
     private final EventRepository eventRepository;
 
+    private static final String PRODUCT_KEY_PREFIX = RedisEventService.PRODUCT_KEY_PREFIX;
+    private static final byte[][] DASHBOARD_FIELDS = {
+            bytes("productId"), bytes("productName"), bytes("eventId"),
+            bytes(RedisStockService.STOCK_FIELD), bytes(RedisStockService.SEGMENTS_FIELD)};
+
+    @Value("${flashsale.dashboard.snapshotTtlMs:1000}")
+    private long snapshotTtlMs;
+
+    @Value("${flashsale.dashboard.scanCount:500}")
+    private int scanCount;
+
+    private final AtomicReference<CompletableFuture<Snapshot>> snapshot = new AtomicReference<>();
+
+    private record Snapshot(List<DashboardStockResponse> stocks, long loadedAtNanos) {
+    }
+
+    private record ProductFields(String productId, String productName, String eventId, Integer stock, int segments) {
+    }
+
     public List<DashboardStockResponse> getStocks() {
-        Set<String> keys = redisTemplateDb0.keys("productId:*");
-        List<DashboardStockResponse> result = new ArrayList<>();
+        while (true) {
+            CompletableFuture<Snapshot> current = snapshot.get();
+            if (current != null && (!current.isDone() || isFresh(current))) {
+                return await(current); // loading right now, or loaded within the TTL
+            }
+            CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+            if (!snapshot.compareAndSet(current, mine)) {
+                continue; // another request started the reload
+            }
+            try {
+                mine.complete(new Snapshot(loadStocks(), System.nanoTime()));
+            } catch (RuntimeException e) {
+                snapshot.compareAndSet(mine, null); // do not serve the failure to later requests
+                mine.completeExceptionally(e);
+                throw e;
+            }
+            return mine.join().stocks();
+        }
+    }
+
+    private boolean isFresh(CompletableFuture<Snapshot> done) {
+        if (done.isCompletedExceptionally()) {
+            return false;
+        }
+        return System.nanoTime() - done.join().loadedAtNanos() < TimeUnit.MILLISECONDS.toNanos(snapshotTtlMs);
+    }
 
-        if (keys == null || keys.isEmpty()) {
-            return result;
+    private static List<DashboardStockResponse> await(CompletableFuture<Snapshot> future) {
+        try {
+            return future.join().stocks();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
         }
+    }
 
-        for (String key : keys) {
-            Map<Object, Object> hash = redisTemplateDb0.opsForHash().entries(key);
-            if (hash == null || hash.isEmpty()) continue;
+    List<DashboardStockResponse> loadStocks() {
+        return loadStocks(scanProductKeys());
+    }
 
-            String productId   = (String) hash.get("productId");
-            String productName = (String) hash.get("productName");
-            String eventId     = (String) hash.get("eventId");
-            String stockStr    = (String) hash.get("stock");
+    /**
+     * Current rows of the given products only, uncached (StockStreamService re-reads changed products)
+     */
+    public List<DashboardStockResponse> getStocks(Collection<String> productIds) {
+        return loadStocks(productIds.stream().map(RedisEventService::buildProductKey).toList());
+    }
 
-            if (productId == null || stockStr == null) continue;
+    private List<DashboardStockResponse> loadStocks(List<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-            int redisStock;
-            try {
-                redisStock = Integer.parseInt(stockStr);
-            } catch (NumberFormatException e) {
-                log.warn("Cannot parse stock value '{}' for key {}", stockStr, key);
-                continue;
+        // 1. One pipeline: HMGET of the dashboard fields for every product
+        List<Object> rows = redisTemplateDb0.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.hashCommands().hMGet(bytes(key), DASHBOARD_FIELDS);
+            }
+            return null;
+        });
+        List<ProductFields> products = new ArrayList<>(keys.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ProductFields fields = parse(keys.get(i), rows.get(i));
+            if (fields != null) {
+                products.add(fields);
             }
+        }
 
-            int dbStock = 0;
-            if (eventId != null) {
-                Optional<Event> eventOpt = eventRepository.findById(eventId);
-                if (eventOpt.isPresent()) {
-                    dbStock = eventOpt.get().getStock();
-                }
+        // 2. Segmented stock: second pipeline over the sub-counters (productId:{id}:seg:{i})
+        Map<String, Integer> segmentedStock = sumSegments(products);
+
+        // 3. MySQL stock in one query
+        Set<String> eventIds = new HashSet<>();
+        products.forEach(product -> {
+            if (product.eventId() != null) {
+                eventIds.add(product.eventId());
             }
+        });
+        Map<String, Integer> dbStock = new HashMap<>();
+        for (Event event : eventRepository.findAllById(eventIds)) {
+            dbStock.put(event.getEventId(), event.getStock());
+        }
 
+        List<DashboardStockResponse> result = new ArrayList<>(products.size());
+        for (ProductFields product : products) {
+            Integer redisStock = product.segments() > 1 ? segmentedStock.get(product.productId()) : product.stock();
+            if (redisStock == null) continue;
             result.add(DashboardStockResponse.builder()
-                    .productId(productId)
-                    .productName(productName)
-                    .eventId(eventId)
+                    .productId(product.productId())
+                    .productName(product.productName())
+                    .eventId(product.eventId())
                     .redisStock(redisStock)
-                    .dbStock(dbStock)
+                    .dbStock(product.eventId() != null ? dbStock.getOrDefault(product.eventId(), 0) : 0)
                     .build());
         }
-
         return result;
     }
+
+    /**
+     * Incremental SCAN instead of KEYS: Redis serves buyers between cursor pages
+     */
+    private List<String> scanProductKeys() {
+        List<String> keys = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(PRODUCT_KEY_PREFIX + "*").count(scanCount).build();
+        try (Cursor<String> cursor = redisTemplateDb0.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                // Stock sub-counters / buyer sets (productId:{id}:...) are summed through their main key
+                if (key.indexOf(':', PRODUCT_KEY_PREFIX.length()) < 0) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private ProductFields parse(String key, Object row) {
+        if (!(row instanceof List<?> values) || values.size() < DASHBOARD_FIELDS.length || values.get(0) == null) {
+            return null;
+        }
+        try {
+            Integer stock = values.get(3) != null ? Integer.parseInt((String) values.get(3)) : null;
+            int segments = values.get(4) != null ? Integer.parseInt((String) values.get(4)) : 1;
+            return new ProductFields((String) values.get(0), (String) values.get(1), (String) values.get(2), stock, segments);
+        } catch (NumberFormatException e) {
+            log.warn("Cannot parse stock value for key {}", key);
+            return null;
+        }
+    }
+
+    private Map<String, Integer> sumSegments(List<ProductFields> products) {
+        List<ProductFields> segmented = products.stream().filter(product -> product.segments() > 1).toList();
+        Map<String, Integer> totals = new HashMap<>();
+        if (segmented.isEmpty()) {
+            return totals;
+        }
+        byte[] stockField = bytes(RedisStockService.STOCK_FIELD);
+        List<Object> stocks = redisTemplateDb0.executePipelined((RedisCallback<Object>) connection -> {
+            for (ProductFields product : segmented) {
+                for (int i = 0; i < product.segments(); i++) {
+                    connection.hashCommands().hGet(bytes(RedisStockService.buildSegmentKey(product.productId(), i)), stockField);
+                }
+            }
+            return null;
+        });
+        int index = 0;
+        for (ProductFields product : segmented) {
+            int total = 0;
+            for (int i = 0; i < product.segments(); i++) {
+                Object stock = stocks.get(index++);
+                if (stock != null) {
+                    total += Integer.parseInt((String) stock);
+                }
+            }
+            totals.put(product.productId(), total);
+        }
+        return totals;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
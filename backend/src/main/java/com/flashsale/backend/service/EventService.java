@@ -37,6 +37,7 @@ public class EventService {
 
     private final EventRepository eventRepository;
     private final ProductService productService;
+    private final SoldOutRegistry soldOutRegistry;
     @Qualifier("redisTemplateDb0") // Explicit: preload writes stock cache to DB0
     private final RedisTemplate<String, Object> redisTemplate;
 
@@ -148,16 +149,75 @@ public class EventService {
         List<EventProductDTO> preheatData = eventRepository.findPreheatEvents(start, end);
         redisTemplate.delete(PREHEATED_PRODUCT_KEYS);
         for (EventProductDTO dto : preheatData) {
-            String productKey = "productId:" + dto.getProductId();
+            String productKey = RedisEventService.buildProductKey(dto.getProductId());
+            Object previousEventId = redisTemplate.opsForHash().get(productKey, "eventId");
+            // Purchase records belong to one event; keep them when the same event is preheated again
+            boolean newEvent = !dto.getEventId().equals(previousEventId);
+            if (newEvent) {
+                redisTemplate.delete(RedisStockService.buildBuyersKey(dto.getProductId()));
+            }
+            deleteStockSegments(dto.getProductId(), newEvent); // sub-counters of the previous layout
             redisTemplate.delete(productKey); //Delete First
             Map<String, String> eventDetails = convertToRedisMap(dto);
             redisTemplate.opsForHash().putAll(productKey, eventDetails);
             redisTemplate.expire(productKey, 2, TimeUnit.DAYS);
+            writeStockSegments(dto);
             redisTemplate.opsForList().rightPush(PREHEATED_PRODUCT_KEYS, productKey);
+            // eventId -> productId index so createOrder can resolve the event without MySQL
+            redisTemplate.opsForValue().set(RedisEventService.buildEventIndexKey(dto.getEventId()), dto.getProductId(), 2, TimeUnit.DAYS);
+            if (dto.getStock() != null && dto.getStock() > 0) {
+                soldOutRegistry.clearSoldOut(dto.getProductId()); // fresh stock: drop stale sold-out flags cluster-wide
+            }
         }
         redisTemplate.expire(PREHEATED_PRODUCT_KEYS, 2, TimeUnit.DAYS);
     }
 
+    /**
+     * @description Split event stock across N sub-counters (productId:{id}:seg:{i}) so buyers don't serialize on one key
+     * @author Yang-Hsu
+     */
+    private void writeStockSegments(EventProductDTO dto) {
+        int segments = resolveStockSegments(dto);
+        if (segments <= 1) {
+            return;
+        }
+        int stock = dto.getStock();
+        for (int i = 0; i < segments; i++) {
+            // First (stock % segments) sub-counters take the remainder
+            int segmentStock = stock / segments + (i < stock % segments ? 1 : 0);
+            String segmentKey = RedisStockService.buildSegmentKey(dto.getProductId(), i);
+            redisTemplate.opsForHash().put(segmentKey, RedisStockService.STOCK_FIELD, String.valueOf(segmentStock));
+            redisTemplate.expire(segmentKey, 2, TimeUnit.DAYS);
+        }
+        log.info("Preheated product {} with {} stock segments", dto.getProductId(), segments);
+    }
+
+    /**
+     * Segment buyer records go with their event; re-preheating the same event with another segment count
+     * re-homes members, so their earlier purchases are no longer seen by the limit check
+     */
+    private void deleteStockSegments(String productId, boolean withBuyers) {
+        Object previous = redisTemplate.opsForHash().get(RedisEventService.buildProductKey(productId), RedisStockService.SEGMENTS_FIELD);
+        if (previous == null) {
+            return;
+        }
+        int segments = Integer.parseInt((String) previous);
+        for (int i = 0; i < segments; i++) {
+            redisTemplate.delete(RedisStockService.buildSegmentKey(productId, i));
+            if (withBuyers) {
+                redisTemplate.delete(RedisStockService.buildSegmentBuyersKey(productId, i));
+            }
+        }
+    }
+
+    private int resolveStockSegments(EventProductDTO dto) {
+        if (dto.getStockSegments() == null || dto.getStock() == null) {
+            return 1;
+        }
+        // No point in more sub-counters than units of stock
+        return Math.max(1, Math.min(dto.getStockSegments(), dto.getStock()));
+    }
+
     private Map<String, String> convertToRedisMap(EventProductDTO dto) {
         Map<String, String> map = new HashMap<>();
         map.put("productId", dto.getProductId());
@@ -165,7 +225,19 @@ public class EventService {
         map.put("productName", dto.getProductName());
         map.put("description", dto.getDescription());
         map.put("price", dto.getPrice() != null ? dto.getPrice().toString() : "0");
-        map.put("stock", String.valueOf(dto.getStock()));
+        int segments = resolveStockSegments(dto);
+        if (segments > 1) {
+            // Stock lives only in the sub-counters; the main hash keeps the layout
+            map.put(RedisStockService.SEGMENTS_FIELD, String.valueOf(segments));
+        } else {
+            map.put(RedisStockService.STOCK_FIELD, String.valueOf(dto.getStock()));
+        }
+        if (dto.getMaxPerMember() != null) {
+            map.put(RedisStockService.MAX_PER_MEMBER_FIELD, String.valueOf(dto.getMaxPerMember()));
+        }
+        if (dto.getPaymentWindowMinutes() != null) {
+            map.put(RedisEventService.PAYMENT_WINDOW_FIELD, String.valueOf(dto.getPaymentWindowMinutes()));
+        }
         map.put("startTime", dto.getStartTime().toString());
         map.put("endTime", dto.getEndTime().toString());
         return map;
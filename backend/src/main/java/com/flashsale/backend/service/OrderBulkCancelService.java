@@ -0,0 +1,62 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.repository.EventRepository;
+import com.flashsale.backend.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @description Cancels many expired orders at once (payment expiry sweep).
+ * MySQL：鎖定仍為 PENDING 的訂單 → 一個條件式 UPDATE 轉為 FAILED → 每個 event 一次回補庫存，全部在同一交易；
+ * commit 之後 Redis 每個商品一次 script 回補 (含限購額度)，db1 快取一次 DEL 清除。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBulkCancelService {
+
+    private final OrderRepository orderRepository;
+    private final EventRepository eventRepository;
+    private final RedisStockService redisStockService;
+    private final RedisOrderService redisOrderService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @return orders actually cancelled (ids that were already paid / cancelled / missing are skipped)
+     */
+    public List<Order> cancelExpired(List<String> orderIds) {
+        List<Order> cancelled = transactionTemplate.execute(status -> {
+            List<Order> pending = orderRepository.findPendingByIdsForUpdate(orderIds);
+            if (pending.isEmpty()) {
+                return pending;
+            }
+            orderRepository.markPendingFailed(pending.stream().map(Order::getOrderId).toList());
+            // Sorted so concurrent sweeps lock event rows in the same order
+            Map<String, Integer> quantityByEvent = new TreeMap<>();
+            pending.forEach(order -> quantityByEvent.merge(order.getEventId(), order.getQuantity(), Integer::sum));
+            quantityByEvent.forEach(eventRepository::increaseStock);
+            return pending;
+        });
+        if (cancelled == null || cancelled.isEmpty()) {
+            return List.of();
+        }
+        // MySQL is committed; Redis follows (a failure here is logged by RedisStockService, same as single cancel)
+        Map<String, Map<String, Integer>> quantityByProduct = new HashMap<>();
+        cancelled.forEach(order -> quantityByProduct.computeIfAbsent(order.getProductId(), id -> new HashMap<>())
+                .merge(order.getMemberId(), order.getQuantity(), Integer::sum));
+        quantityByProduct.forEach(redisStockService::increaseStock);
+        redisOrderService.deleteOrderCaches(cancelled);
+        log.info("Cancelled {} expired orders of {} claimed ({} events, {} products).", cancelled.size(), orderIds.size(),
+                cancelled.stream().map(Order::getEventId).distinct().count(), quantityByProduct.size());
+        return cancelled;
+    }
+}
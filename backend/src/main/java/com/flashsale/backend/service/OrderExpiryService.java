@@ -0,0 +1,132 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.message.OrderExpiryMessage;
+import com.flashsale.backend.redis.LuaScript;
+import com.flashsale.backend.redis.RedisScriptRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @description Payment deadlines of PENDING orders.
+ * zset 模式：deadline 依時間分桶寫入 Redis ZSET (flashsale:order:expiry:{bucket})，由 OrderExpirySweeper 批次認領；
+ * ttl-queue 模式：沿用 RabbitMQ TTL_QUEUE (固定 10 分鐘，無法依場次調整)。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExpiryService {
+
+    public static final String BUCKET_KEY_PREFIX = "flashsale:order:expiry:";
+    public static final String BUCKET_INDEX_KEY = BUCKET_KEY_PREFIX + "buckets";
+    public static final String MODE_ZSET = "zset";
+
+    @Qualifier("redisTemplateDb0")
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${flashsale.order.expiry.mode:zset}")
+    private String mode;
+
+    @Value("${flashsale.order.expiry.bucketMs:60000}")
+    private long bucketMs;
+
+    @Value("${flashsale.order.expiry.defaultWindowMinutes:10}")
+    private int defaultWindowMinutes;
+
+    public static String buildBucketKey(long bucket) {
+        return BUCKET_KEY_PREFIX + bucket;
+    }
+
+    /**
+     * Deadline for an order admitted now; the event's own window wins over the default
+     */
+    public LocalDateTime deadlineFor(Integer paymentWindowMinutes, LocalDateTime now) {
+        return now.plusMinutes(paymentWindowMinutes != null ? paymentWindowMinutes : defaultWindowMinutes);
+    }
+
+    public void schedule(Order order) {
+        scheduleAll(List.of(order));
+    }
+
+    /**
+     * Called by the consumers once the orders are persisted
+     */
+    public void scheduleAll(List<Order> orders) {
+        if (!MODE_ZSET.equals(mode)) {
+            rabbitTemplate.invoke(operations -> {
+                orders.forEach(order -> operations.convertAndSend(RabbitConfig.ORDER_EXCHANGE, RabbitConfig.TTL_ROUTING_KEY, OrderExpiryMessage.from(order)));
+                return null;
+            });
+            return;
+        }
+        byte[] indexKey = BUCKET_INDEX_KEY.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Order order : orders) {
+                long deadline = toEpochMillis(order.getExpiresAt() != null
+                        ? order.getExpiresAt() : deadlineFor(null, LocalDateTime.now())); // queued before deadlines existed
+                long bucket = deadline / bucketMs;
+                connection.zSetCommands().zAdd(buildBucketKey(bucket).getBytes(StandardCharsets.UTF_8), deadline,
+                        order.getOrderId().getBytes(StandardCharsets.UTF_8));
+                connection.zSetCommands().zAdd(indexKey, bucket, String.valueOf(bucket).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Puts a claimed order back (its cancellation failed) so a later sweep retries it
+     */
+    public void reschedule(String orderId, long deadlineMillis) {
+        long bucket = deadlineMillis / bucketMs;
+        redisTemplate.opsForZSet().add(buildBucketKey(bucket), orderId, deadlineMillis);
+        redisTemplate.opsForZSet().add(BUCKET_INDEX_KEY, String.valueOf(bucket), bucket);
+    }
+
+    /**
+     * Buckets that may hold due deadlines (bucket id ≤ now)
+     */
+    public List<Long> dueBuckets(long nowMillis) {
+        Set<Object> buckets = redisTemplate.opsForZSet().rangeByScore(BUCKET_INDEX_KEY, Double.NEGATIVE_INFINITY, nowMillis / bucketMs);
+        List<Long> result = new ArrayList<>();
+        if (buckets != null) {
+            buckets.forEach(bucket -> result.add(Long.parseLong((String) bucket)));
+        }
+        return result;
+    }
+
+    /**
+     * Atomically removes and returns up to limit due orderIds of one bucket; no other node can claim them again
+     */
+    public List<String> claim(long bucket, long nowMillis, int limit) {
+        // Deadlines are always in the future when scheduled, so a bucket that ended a full bucket ago stays empty
+        boolean closed = (bucket + 2) * bucketMs <= nowMillis;
+        List<byte[]> claimed = scriptRegistry.execute(LuaScript.CLAIM_EXPIRED_ORDERS,
+                List.of(buildBucketKey(bucket), BUCKET_INDEX_KEY), nowMillis, limit, bucket, closed ? "1" : "0");
+        List<String> orderIds = new ArrayList<>(claimed != null ? claimed.size() : 0);
+        if (claimed != null) {
+            claimed.forEach(id -> orderIds.add(new String(id, StandardCharsets.UTF_8)));
+        }
+        return orderIds;
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,64 @@
+package com.flashsale.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * @description Sweeps due payment deadlines out of the Redis expiry buckets and bulk-cancels the orders still PENDING.
+ * 每個節點都會 sweep；Lua 認領 (ZRANGEBYSCORE + ZREM) 保證同一筆訂單只會被一個節點處理。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "flashsale.order.expiry.mode", havingValue = OrderExpiryService.MODE_ZSET, matchIfMissing = true)
+@RequiredArgsConstructor
+public class OrderExpirySweeper {
+
+    private final OrderExpiryService orderExpiryService;
+    private final OrderBulkCancelService orderBulkCancelService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${flashsale.order.expiry.claimBatchSize:500}")
+    private int claimBatchSize;
+
+    @Value("${flashsale.order.expiry.retryDelayMs:30000}")
+    private long retryDelayMs;
+
+    @Scheduled(fixedDelayString = "${flashsale.order.expiry.sweepIntervalMs:1000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        try {
+            for (long bucket : orderExpiryService.dueBuckets(now)) {
+                List<String> claimed;
+                do {
+                    claimed = orderExpiryService.claim(bucket, now, claimBatchSize);
+                    if (!claimed.isEmpty()) {
+                        cancelExpired(claimed, now);
+                    }
+                } while (claimed.size() == claimBatchSize);
+            }
+        } catch (Exception e) {
+            log.error("Order expiry sweep failed, will retry next interval.", e);
+        }
+    }
+
+    void cancelExpired(List<String> orderIds, long now) {
+        meterRegistry.counter("flashsale.order.expiry.claimed").increment(orderIds.size());
+        try {
+            int cancelled = orderBulkCancelService.cancelExpired(orderIds).size(); // only orders still PENDING
+            meterRegistry.counter("flashsale.order.expiry.cancelled").increment(cancelled);
+        } catch (Exception e) {
+            // The transaction rolled back as a whole, so every claimed id goes back
+            log.warn("Bulk cancel of {} expired orders failed, rescheduling in {} ms: {}", orderIds.size(), retryDelayMs, e.getMessage());
+            orderIds.forEach(orderId -> orderExpiryService.reschedule(orderId, now + retryDelayMs));
+            meterRegistry.counter("flashsale.order.expiry.retried").increment(orderIds.size());
+        }
+    }
+}
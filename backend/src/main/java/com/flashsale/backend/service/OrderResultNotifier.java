@@ -0,0 +1,169 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.dto.response.OrderClientDetailResponse;
+import com.flashsale.backend.dto.response.OrderStatusResponse;
+import com.flashsale.backend.entity.Order;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description Pushes the MQ order outcome to whichever node holds the buyer's SSE / long-poll request.
+ * Consumer 透過 Redis Pub/Sub 廣播 "STATUS:memberId:eventId"，持有等待者的節點才回讀 DB1 訂單狀態快取。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderResultNotifier implements MessageListener {
+
+    public static final String ORDER_RESULT_CHANNEL = "flashsale:order:result";
+
+    public static final String SUCCESS = "SUCCESS";
+    public static final String FAILED = "FAILED";
+    public static final String PENDING = "PENDING";
+
+    @Qualifier("redisTemplateDb0")
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final RedisOrderService redisOrderService;
+
+    private final Map<String, Set<CompletableFuture<OrderStatusResponse>>> waiters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(ORDER_RESULT_CHANNEL));
+    }
+
+    /**
+     * Resolves with SUCCESS / FAILED as soon as the consumer reports, or PENDING after timeoutMs.
+     * 先註冊再查快取，避免查詢與廣播之間的結果遺失
+     */
+    public CompletableFuture<OrderStatusResponse> awaitResult(String memberId, String eventId, long timeoutMs) {
+        String key = key(memberId, eventId);
+        CompletableFuture<OrderStatusResponse> future = new CompletableFuture<>();
+        waiters.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(future);
+        future.whenComplete((result, ex) -> waiters.computeIfPresent(key, (k, set) -> {
+            set.remove(future);
+            return set.isEmpty() ? null : set;
+        }));
+
+        OrderClientDetailResponse cached = redisOrderService.getOrderCache(memberId, eventId);
+        if (cached != null) {
+            future.complete(success(cached));
+        }
+        return future.completeOnTimeout(OrderStatusResponse.builder().status(PENDING).build(), timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called by the consumer once the order is persisted and cached (SUCCESS) or rolled back (FAILED)
+     */
+    public void publish(Order order, String status) {
+        try {
+            redisTemplate.convertAndSend(ORDER_RESULT_CHANNEL, body(order, status));
+        } catch (Exception e) {
+            // Waiters fall back to the cache check on their next request
+            log.error("Failed to publish order result for member {}: {}", order.getMemberId(), status, e);
+        }
+    }
+
+    /**
+     * Inside a transaction the result goes out only once it has committed, so a waiter never reads an order that is
+     * still rolled back; outside one it is published right away
+     */
+    public void publishAfterCommit(Order order, String status) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(order, status);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(order, status);
+            }
+        });
+    }
+
+    /**
+     * Batch consumer variant: one pipelined round trip for the whole batch
+     */
+    public void publishAll(List<Order> orders, String status) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        byte[] channel = ORDER_RESULT_CHANNEL.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Order order : orders) {
+                    connection.publish(channel, body(order, status).getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Failed to publish {} order results: {}", orders.size(), status, e);
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int split = body.indexOf(':');
+        if (split < 0) {
+            log.warn("Unknown order result message: {}", body);
+            return;
+        }
+        String key = body.substring(split + 1);
+        Set<CompletableFuture<OrderStatusResponse>> local = waiters.get(key);
+        if (local == null || local.isEmpty()) {
+            return; // the buyer is connected to another node (or not waiting at all)
+        }
+        String status = body.substring(0, split);
+        OrderStatusResponse result;
+        if (SUCCESS.equals(status)) {
+            int memberEnd = key.indexOf(':');
+            OrderClientDetailResponse order = redisOrderService.getOrderCache(key.substring(0, memberEnd), key.substring(memberEnd + 1));
+            if (order == null) {
+                return; // cache already evicted (cancelled); the timeout answers PENDING and the client re-checks
+            }
+            result = success(order);
+        } else {
+            result = OrderStatusResponse.builder().status(FAILED).build();
+        }
+        local.forEach(future -> future.complete(result));
+    }
+
+    int waiterCount() {
+        return waiters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private static OrderStatusResponse success(OrderClientDetailResponse order) {
+        return OrderStatusResponse.builder().status(SUCCESS).order(order).build();
+    }
+
+    private static String body(Order order, String status) {
+        return status + ":" + key(order.getMemberId(), order.getEventId());
+    }
+
+    private static String key(String memberId, String eventId) {
+        return memberId + ":" + eventId;
+    }
+}
@@ -1,25 +1,28 @@
 package com.flashsale.backend.service;
 
 import com.flashsale.backend.common.ResultCode;
-import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.common.metrics.PurchaseMetrics;
+import com.flashsale.backend.common.util.OrderIdGenerator;
 import com.flashsale.backend.dto.request.OrderRequest;
 import com.flashsale.backend.dto.request.PaymentRequest;
+import com.flashsale.backend.dto.response.EventProductDTO;
 import com.flashsale.backend.dto.response.OrderClientDetailResponse;
 import com.flashsale.backend.dto.response.OrderStatusResponse;
 import com.flashsale.backend.entity.Event;
 import com.flashsale.backend.entity.Order;
 import com.flashsale.backend.exception.BusinessException;
+import com.flashsale.backend.mq.dispatch.OrderDispatcher;
 import com.flashsale.backend.repository.EventRepository;
 import com.flashsale.backend.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * @author Yang-Hsu
@@ -35,7 +38,13 @@ public class OrderService {
     private final EventRepository eventRepository;
     private final RedisStockService redisStockService;
     private final RedisOrderService redisOrderService;
-    private final RabbitTemplate rabbitTemplate;
+    private final RedisEventService redisEventService;
+    private final SoldOutRegistry soldOutRegistry;
+    private final OrderDispatcher orderDispatcher;
+    private final OrderIdGenerator orderIdGenerator;
+    private final OrderExpiryService orderExpiryService;
+    private final OrderResultNotifier orderResultNotifier;
+    private final PurchaseMetrics purchaseMetrics;
 
     /**
      * @description Create Order directly to DB — dev/test only, bypasses Redis and MQ.
@@ -55,6 +64,7 @@ public class OrderService {
             throw new BusinessException(ResultCode.STOCK_INVALID);
         }
         Order order = new Order();
+        order.setOrderId(orderIdGenerator.nextId());
         order.setMemberId(request.getMemberId());
         order.setEventId(request.getEventId());
         order.setProductId(event.getProduct().getProductId());
@@ -76,10 +86,13 @@ public class OrderService {
         log.info("Creating order (Redis) for member: {}, event: {}", request.getMemberId(), request.getEventId());
         Event event = eventRepository.findById(request.getEventId())
                 .orElseThrow(() -> new BusinessException(ResultCode.EVENT_NOT_FOUND));
-        long stockResult = redisStockService.decreaseStock(event.getEventId(), request.getQuantity());
+        // Stock is preheated per product (productId:{id}), not per event
+        long stockResult = redisStockService.decreaseStock(event.getProductId(), request.getMemberId(), request.getQuantity());
         if (stockResult == -3) throw new BusinessException(ResultCode.STOCK_SOLD_OUT);
+        if (stockResult == -4) throw new BusinessException(ResultCode.ORDER_LIMIT_EXCEEDED);
         if (stockResult < 0)  throw new BusinessException(ResultCode.STOCK_INVALID);
         Order order = new Order();
+        order.setOrderId(orderIdGenerator.nextId());
         order.setMemberId(request.getMemberId());
         order.setEventId(request.getEventId());
         order.setProductId(event.getProduct().getProductId());
@@ -95,47 +108,103 @@ public class OrderService {
      * @date 2026/2/19 下午8:27
      */
     public Order createOrder(OrderRequest request) {
+        long start = System.nanoTime();
+        try {
+            Order order = admitOrder(request, start);
+            purchaseMetrics.orderCreated(request.getEventId(), ResultCode.SUCCESS, start);
+            return order;
+        } catch (RuntimeException e) {
+            purchaseMetrics.orderCreated(request.getEventId(), PurchaseMetrics.resultOf(e), start);
+            throw e;
+        }
+    }
+
+    private Order admitOrder(OrderRequest request, long start) {
         log.info("Creating order (MQ) for member: {}, event: {}", request.getMemberId(), request.getEventId());
 
-        // 1. Check Event existence and info
-        Event event = eventRepository.findById(request.getEventId())
-                .orElseThrow(() -> new BusinessException(ResultCode.EVENT_NOT_FOUND));
-        // 2. Deduct Redis Stock
-        long stockResult = redisStockService.decreaseStock(event.getProduct().getProductId(), request.getQuantity());
+        // 1. Resolve Event info from the Redis preheat snapshot (MySQL only on miss)
+        EventProductDTO event = resolveEventSnapshot(request.getEventId());
+        long stepStart = purchaseMetrics.orderStep("snapshot", request.getEventId(), "ok", start);
+        String productId = event.getProductId();
+        LocalDateTime now = LocalDateTime.now();
+        if (event.getStartTime() != null && now.isBefore(event.getStartTime())) {
+            throw new BusinessException(ResultCode.EVENT_NOT_STARTED);
+        }
+        if (event.getEndTime() != null && now.isAfter(event.getEndTime())) {
+            throw new BusinessException(ResultCode.EVENT_EXPIRED);
+        }
+        // 2. Local sold-out flag: reject without a Redis round trip
+        if (soldOutRegistry.isSoldOut(productId)) {
+            throw new BusinessException(ResultCode.STOCK_SOLD_OUT);
+        }
+        // 3. Deduct Redis Stock
+        long stockResult = redisStockService.decreaseStock(productId, request.getMemberId(), request.getQuantity());
+        stepStart = purchaseMetrics.orderStep("deduct", request.getEventId(), PurchaseMetrics.stockResult(stockResult), stepStart);
         if (stockResult == -3) {
-            log.warn("Create Order (MQ) failed: Product sold out: {}", event.getProduct().getProductId());
+            log.warn("Create Order (MQ) failed: Product sold out: {}", productId);
             throw new BusinessException(ResultCode.STOCK_SOLD_OUT);
         }
+        if (stockResult == -4) {
+            log.warn("Create Order (MQ) failed: Member {} reached the purchase limit for product: {}", request.getMemberId(), productId);
+            throw new BusinessException(ResultCode.ORDER_LIMIT_EXCEEDED);
+        }
         if (stockResult < 0) {
-            log.warn("Create Order (MQ) failed: Insufficient stock for product: {}", event.getProduct().getProductId());
+            log.warn("Create Order (MQ) failed: Insufficient stock for product: {}", productId);
             throw new BusinessException(ResultCode.STOCK_INVALID);
         }
-        // 3. Prepare Order Object (Status: PENDING)
+        // 4. Prepare Order Object (Status: PENDING)
         Order order = new Order();
+        order.setOrderId(orderIdGenerator.nextId());
         order.setMemberId(request.getMemberId());
         order.setEventId(request.getEventId());
-        order.setProductId(event.getProduct().getProductId());
+        order.setProductId(productId);
         order.setQuantity(request.getQuantity());
         order.setTotalPrice(event.getPrice().multiply(BigDecimal.valueOf(request.getQuantity())));
         order.setStatus("PENDING");
-        try {
-            rabbitTemplate.convertAndSend(RabbitConfig.ORDER_EXCHANGE, RabbitConfig.ORDER_ROUTING_KEY, order);
-            log.info("Order request sent to queue for member: {}", request.getMemberId());
-        } catch (Exception e) {
-            log.error("Failed to send order to MQ, restoring Redis stock.", e);
-            redisStockService.increaseStock(event.getProduct().getProductId(), request.getQuantity());
+        order.setExpiresAt(orderExpiryService.deadlineFor(event.getPaymentWindowMinutes(), now));
+        // 5. Hand over to the configured transport (RabbitMQ publisher / outbox, Redis Stream, in-process ring)
+        boolean accepted = orderDispatcher.dispatch(order);
+        purchaseMetrics.orderStep("dispatch", request.getEventId(), accepted ? "accepted" : "rejected", stepStart);
+        if (!accepted) {
+            log.error("Order could not be dispatched, restoring Redis stock for member: {}", request.getMemberId());
+            redisStockService.increaseStock(productId, request.getMemberId(), request.getQuantity());
+            orderResultNotifier.publish(order, OrderResultNotifier.FAILED);
             throw new BusinessException(ResultCode.SYSTEM_ERROR);
         }
+        log.info("Order request dispatched for member: {}", request.getMemberId());
         return order;
     }
 
+    /**
+     * @description Preheated snapshot first; fall back to MySQL when the event was not preheated (or was overwritten)
+     * @author Yang-Hsu
+     */
+    private EventProductDTO resolveEventSnapshot(String eventId) {
+        EventProductDTO snapshot = redisEventService.getEventSnapshot(eventId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        log.info("Event snapshot miss in Redis, falling back to MySQL: {}", eventId);
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new BusinessException(ResultCode.EVENT_NOT_FOUND));
+        EventProductDTO fallback = new EventProductDTO();
+        fallback.setProductId(event.getProductId());
+        fallback.setEventId(event.getEventId());
+        fallback.setPrice(event.getPrice());
+        fallback.setStock(event.getStock());
+        fallback.setStartTime(event.getStartTime());
+        fallback.setEndTime(event.getEndTime());
+        fallback.setPaymentWindowMinutes(event.getPaymentWindowMinutes());
+        return fallback;
+    }
+
     /**
      * @description
      * @author Yang-Hsu
      * @date 2026/2/23 上午12:29
      */
     public OrderStatusResponse getOrderStatusFromRedis(String memberId, String eventId) {
-        Order order = redisOrderService.getOrderCache(memberId, eventId);
+        OrderClientDetailResponse order = redisOrderService.getOrderCache(memberId, eventId);
 
         if (order != null) {
             return OrderStatusResponse.builder()
@@ -169,7 +238,7 @@ public class OrderService {
         // 回滾 MySQL 庫存
         eventRepository.increaseStock(order.getEventId(), order.getQuantity());
         // 回滾 Redis 庫存
-        redisStockService.increaseStock(order.getProductId(), order.getQuantity());
+        redisStockService.increaseStock(order.getProductId(), order.getMemberId(), order.getQuantity());
         // 清除 Redis DB1 訂單快取
         redisOrderService.deleteOrderCache(order.getMemberId(), order.getEventId());
         log.info("Order {} cancelled and stock restored.", orderId);
@@ -0,0 +1,70 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.dto.response.EventProductDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @description Redis Event Snapshot Service (db0) — reads the preheated event data for the purchase hot path
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RedisEventService {
+
+    @Qualifier("redisTemplateDb0")
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public static final String PRODUCT_KEY_PREFIX = "productId:";
+    public static final String EVENT_INDEX_KEY_PREFIX = "eventId:";
+
+    public static final String PAYMENT_WINDOW_FIELD = "paymentWindowMinutes";
+
+    private static final List<Object> SNAPSHOT_FIELDS = List.of("eventId", "price", "startTime", "endTime", PAYMENT_WINDOW_FIELD);
+
+    public static String buildProductKey(String productId) {
+        return PRODUCT_KEY_PREFIX + productId;
+    }
+
+    public static String buildEventIndexKey(String eventId) {
+        return EVENT_INDEX_KEY_PREFIX + eventId;
+    }
+
+    /**
+     * 由預熱資料解析 eventId → productId / price / 搶購時段
+     *
+     * @return snapshot，若未預熱、已被其他場次覆蓋或資料不完整則回傳 null（呼叫端應 fallback 到 MySQL）
+     */
+    public EventProductDTO getEventSnapshot(String eventId) {
+        try {
+            Object productId = redisTemplate.opsForValue().get(buildEventIndexKey(eventId));
+            if (productId == null) {
+                return null;
+            }
+            List<Object> values = redisTemplate.opsForHash().multiGet(buildProductKey((String) productId), SNAPSHOT_FIELDS);
+            // The product hash holds the latest preheated event only; a different eventId means the index is stale
+            if (values == null || !eventId.equals(values.get(0)) || values.get(1) == null) {
+                return null;
+            }
+            EventProductDTO snapshot = new EventProductDTO();
+            snapshot.setProductId((String) productId);
+            snapshot.setEventId(eventId);
+            snapshot.setPrice(new BigDecimal((String) values.get(1)));
+            snapshot.setStartTime(values.get(2) != null ? LocalDateTime.parse((String) values.get(2)) : null);
+            snapshot.setEndTime(values.get(3) != null ? LocalDateTime.parse((String) values.get(3)) : null);
+            snapshot.setPaymentWindowMinutes(values.get(4) != null ? Integer.valueOf((String) values.get(4)) : null);
+            return snapshot;
+        } catch (Exception e) {
+            log.warn("Failed to read event snapshot from Redis for eventId: {}", eventId, e);
+            return null;
+        }
+    }
+}
@@ -1,16 +1,30 @@
 package com.flashsale.backend.service;
 
+import com.flashsale.backend.common.metrics.PurchaseMetrics;
+import com.flashsale.backend.dto.response.OrderClientDetailResponse;
 import com.flashsale.backend.entity.Order;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
- * @description Redis Order Cache Service (db1)
+ * @description Redis Order Status Cache Service (db1)
+ * 每個活動一個 hash：order:status:{eventId}，field = memberId，value = 固定欄位二進位編碼 (31 bytes)，TTL 掛在整個 hash 上。
  * @author Yang-Hsu
  */
 @Slf4j
@@ -20,36 +34,167 @@ public class RedisOrderService {
 
     @Qualifier("redisTemplateDb1")
     private final RedisTemplate<String, Object> redisTemplate;
+    private final PurchaseMetrics purchaseMetrics;
 
-    private static final String KEY_PREFIX = "member:event:";
+    private static final String KEY_PREFIX = "order:status:";
+    // event tag of operations spanning several events
+    private static final String MULTI_EVENT = "multi";
 
-    private String buildKey(String memberId, String eventId) {
-        return KEY_PREFIX + memberId + ":" + eventId;
+    /**
+     * v1 layout: version(1) | orderId uuid(16) | status(1) | quantity(4) | price scale(1) | price unscaled(8)
+     */
+    static final byte FORMAT_V1 = 1;
+    static final int V1_LENGTH = 31;
+    private static final byte NULL_PRICE = Byte.MIN_VALUE;
+    private static final List<String> STATUSES = List.of("PENDING", "PAID", "FAILED", "CANCELLED");
+
+    @Value("${flashsale.order.cache.ttlMinutes:30}")
+    private long ttlMinutes;
+
+    private static byte[] buildKey(String eventId) {
+        return (KEY_PREFIX + eventId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] field(String memberId) {
+        return memberId.getBytes(StandardCharsets.UTF_8);
     }
 
     /**
      * 儲存搶購成功的訂單快取
      */
     public void setOrderCache(String memberId, String eventId, Order order) {
-        String key = buildKey(memberId, eventId);
-        redisTemplate.opsForValue().set(key, order, 30, TimeUnit.MINUTES);
-        log.info("Order cached in Redis (TTL=30min): key={}", key);
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                write(connection, order);
+                return null;
+            });
+            result = "ok";
+        } finally {
+            purchaseMetrics.orderCache("set", eventId, result, start);
+        }
+        log.info("Order cached in Redis (TTL={}min): event={}, member={}", ttlMinutes, eventId, memberId);
+    }
+
+    /**
+     * 批次寫入訂單快取：一次 pipeline 送出，避免每筆一個 round trip（batch consumer 用）
+     */
+    public void setOrderCaches(List<Order> orders) {
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                orders.forEach(order -> write(connection, order));
+                return null;
+            });
+            result = "ok";
+        } finally {
+            purchaseMetrics.orderCache("set_batch", MULTI_EVENT, result, start);
+        }
+        log.info("{} orders cached in Redis (TTL={}min) in one pipeline", orders.size(), ttlMinutes);
+    }
+
+    private void write(RedisConnection connection, Order order) {
+        byte[] key = buildKey(order.getEventId());
+        connection.hashCommands().hSet(key, field(order.getMemberId()), encode(order));
+        // sliding TTL for the whole event hash: the last buyer still gets the full window
+        connection.keyCommands().expire(key, TimeUnit.MINUTES.toSeconds(ttlMinutes));
+    }
+
+    /**
+     * 查詢搶購結果（輪詢用），只含 orderId / status / quantity / totalPrice
+     */
+    public OrderClientDetailResponse getOrderCache(String memberId, String eventId) {
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.hashCommands().hGet(buildKey(eventId), field(memberId)));
+            OrderClientDetailResponse order = value == null ? null : decode(value);
+            result = order != null ? "hit" : "miss";
+            return order;
+        } finally {
+            purchaseMetrics.orderCache("get", eventId, result, start);
+        }
     }
 
     /**
-     * 查詢搶購結果（輪詢用）
+     * 批次刪除訂單快取：每個活動一個 HDEL，一次 pipeline（批次取消用）
      */
-    public Order getOrderCache(String memberId, String eventId) {
-        String key = buildKey(memberId, eventId);
-        return (Order) redisTemplate.opsForValue().get(key);
+    public void deleteOrderCaches(List<Order> orders) {
+        Map<String, List<String>> membersByEvent = orders.stream().collect(Collectors.groupingBy(Order::getEventId,
+                Collectors.mapping(Order::getMemberId, Collectors.toList())));
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                membersByEvent.forEach((eventId, memberIds) ->
+                        connection.hashCommands().hDel(buildKey(eventId), memberIds.stream().map(RedisOrderService::field).toArray(byte[][]::new)));
+                return null;
+            });
+            result = "ok";
+        } finally {
+            purchaseMetrics.orderCache("delete_batch", MULTI_EVENT, result, start);
+        }
+        log.info("Order caches deleted from Redis: {} orders across {} events", orders.size(), membersByEvent.size());
     }
 
     /**
      * 刪除訂單快取（回滾用）
      */
     public void deleteOrderCache(String memberId, String eventId) {
-        String key = buildKey(memberId, eventId);
-        redisTemplate.delete(key);
-        log.info("Order cache deleted from Redis: key={}", key);
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.hashCommands().hDel(buildKey(eventId), field(memberId)));
+            result = "ok";
+        } finally {
+            purchaseMetrics.orderCache("delete", eventId, result, start);
+        }
+        log.info("Order cache deleted from Redis: event={}, member={}", eventId, memberId);
+    }
+
+    static byte[] encode(Order order) {
+        int status = STATUSES.indexOf(order.getStatus());
+        if (status < 0) {
+            throw new IllegalArgumentException("Unknown order status: " + order.getStatus());
+        }
+        UUID orderId = UUID.fromString(order.getOrderId());
+        ByteBuffer buffer = ByteBuffer.allocate(V1_LENGTH)
+                .put(FORMAT_V1)
+                .putLong(orderId.getMostSignificantBits())
+                .putLong(orderId.getLeastSignificantBits())
+                .put((byte) status)
+                .putInt(order.getQuantity());
+        BigDecimal price = order.getTotalPrice();
+        if (price == null) {
+            buffer.put(NULL_PRICE).putLong(0L);
+        } else {
+            buffer.put((byte) price.scale()).putLong(price.unscaledValue().longValueExact());
+        }
+        return buffer.array();
+    }
+
+    static OrderClientDetailResponse decode(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        byte version = buffer.get();
+        if (version != FORMAT_V1 || value.length != V1_LENGTH) {
+            // unknown layout (newer writer during a rollout): treat as a cache miss
+            log.warn("Unsupported order cache format v{} ({} bytes)", version, value.length);
+            return null;
+        }
+        String orderId = new UUID(buffer.getLong(), buffer.getLong()).toString();
+        String status = STATUSES.get(buffer.get());
+        int quantity = buffer.getInt();
+        byte scale = buffer.get();
+        long unscaled = buffer.getLong();
+        return OrderClientDetailResponse.builder()
+                .orderId(orderId)
+                .status(status)
+                .quantity(quantity)
+                .totalPrice(scale == NULL_PRICE ? null : new BigDecimal(BigInteger.valueOf(unscaled), scale))
+                .build();
     }
 }
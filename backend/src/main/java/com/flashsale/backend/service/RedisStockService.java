@@ -1,12 +1,28 @@
 package com.flashsale.backend.service;
 
+import com.flashsale.backend.common.metrics.PurchaseMetrics;
+import com.flashsale.backend.redis.LuaScript;
+import com.flashsale.backend.redis.RedisScriptRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -14,70 +30,574 @@ import java.util.Collections;
 public class RedisStockService {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SoldOutRegistry soldOutRegistry;
+    private final RedisScriptRegistry scriptRegistry;
+    private final PurchaseMetrics purchaseMetrics;
 
-    private static final String DECREASE_STOCK_LUA = "local currentStock = redis.call('HGET', KEYS[1], 'stock') " +
-            "if not currentStock then return -1 end " +
-            "currentStock = tonumber(currentStock) " +
-            "local requestQty = tonumber(ARGV[1]) " +
-            "if currentStock <= 0 then return -3 end " +
-            "if currentStock >= requestQty then " +
-            "  local newStock = currentStock - requestQty " +
-            "  redis.call('HSET', KEYS[1], 'stock', tostring(newStock)) " +
-            "  return newStock " +
-            "else return -2 end";
+    public static final String STOCK_FIELD = "stock";
+    public static final String SEGMENTS_FIELD = "segments";
+    public static final String MAX_PER_MEMBER_FIELD = "maxPerMember";
 
-    private static final String INCREASE_STOCK_LUA = "local currentStock = redis.call('HGET', KEYS[1], 'stock') " +
-            "if not currentStock then return -1 end " +
-            "currentStock = tonumber(currentStock) " +
-            "local requestQty = tonumber(ARGV[1]) " +
-            "local newStock = currentStock + requestQty " +
-            "redis.call('HSET', KEYS[1], 'stock', tostring(newStock)) " +
-            "return newStock";
+    public static final String STOCK_CHANGED_CHANNEL = "flashsale:stock:changed";
+    public static final String NOTIFY_KEY_SUFFIX = ":notify";
+    private static final String SEGMENT_KEY_INFIX = ":seg:";
+
+    // Same lifetime as the preheated product hash
+    private static final long BUYERS_TTL_SECONDS = TimeUnit.DAYS.toSeconds(2);
+
+    // Segment count of a product only changes at preheat; a stale entry is detected by the -1 (missing key) result
+    private static final long SEGMENT_LAYOUT_TTL_MS = 30_000L;
+
+    // Result code recorded for a script call that threw (connection / timeout), outside the -1..-4 contract
+    private static final long SCRIPT_ERROR = Long.MIN_VALUE;
+
+    private final Map<String, StockLayout> stockLayouts = new ConcurrentHashMap<>();
+
+    private record StockLayout(int segments, int maxPerMember, long loadedAt) {
+    }
+
+    // Per-member limit for events that don't set max_per_member, 0 = unlimited
+    @Value("${flashsale.stock.maxPerMember:0}")
+    private int defaultMaxPerMember;
+
+    // Lease mode: this node takes blocks of stock from Redis and serves decrements from memory
+    @Value("${flashsale.stock.lease.enabled:false}")
+    private boolean leaseEnabled;
+
+    @Value("${flashsale.stock.lease.blockSize:50}")
+    private int leaseBlockSize;
+
+    @Value("${flashsale.stock.lease.idleTimeoutMs:30000}")
+    private long leaseIdleTimeoutMs;
+
+    private final Map<String, StockLease> leases = new ConcurrentHashMap<>();
+
+    // Combiner mode: concurrent decrements of one unsegmented product share a single batch script call
+    @Value("${flashsale.stock.combiner.enabled:false}")
+    private boolean combinerEnabled;
+
+    @Value("${flashsale.stock.combiner.windowMicros:200}")
+    private long combinerWindowMicros;
+
+    @Value("${flashsale.stock.combiner.maxBatch:64}")
+    private int combinerMaxBatch;
+
+    private StockDecrementCombiner combiner;
+
+    // Stock scripts publish a change notification at most once per product per window (admin stock stream), 0 = off
+    @Value("${flashsale.stock.stream.intervalMs:500}")
+    private long notifyWindowMs;
+
+    @PostConstruct
+    public void initCombiner() {
+        if (combinerEnabled && !leaseEnabled) {
+            combiner = new StockDecrementCombiner(combinerWindowMicros, combinerMaxBatch, this::executeBatch);
+            log.info("Stock decrement combiner enabled: window={}us, maxBatch={}", combinerWindowMicros, combinerMaxBatch);
+        }
+    }
+
+    public static String buildKey(String productId) {
+        return RedisEventService.buildProductKey(productId);
+    }
 
     /**
-     * @return >= 0 成功 (剩餘庫存) | -1 key 不存在 | -2 數量不足 | -3 已售完 (stock=0)
+     * Sub-counter key of a segmented product: productId:{id}:seg:{index}
+     */
+    public static String buildSegmentKey(String productId, int index) {
+        return buildKey(productId) + SEGMENT_KEY_INFIX + index;
+    }
+
+    /**
+     * memberId -> quantity bought, checked and recorded by the stock script: {productId:{id}}:buyers.
+     * Unsegmented products and lease mode only; segments keep their own record, see buildSegmentBuyersKey
+     */
+    public static String buildBuyersKey(String productId) {
+        return hashTagged(buildKey(productId), ":buyers");
+    }
+
+    /**
+     * Buyer record of one segment: {productId:{id}:seg:{i}}:buyers, same cluster slot as the segment it belongs to
+     */
+    public static String buildSegmentBuyersKey(String productId, int index) {
+        return hashTagged(buildSegmentKey(productId, index), ":buyers");
+    }
+
+    /**
+     * Throttle key of the change notification, also the message body on STOCK_CHANGED_CHANNEL: {productId:{id}}:notify
+     */
+    public static String buildNotifyKey(String productId) {
+        return hashTagged(buildKey(productId), NOTIFY_KEY_SUFFIX);
+    }
+
+    /**
+     * productId of a STOCK_CHANGED_CHANNEL message ({productId:{id}}:notify or {productId:{id}:seg:{i}}:notify),
+     * null when the body is not a notify key
+     */
+    public static String productIdOfNotifyKey(String notifyKey) {
+        String prefix = "{" + RedisEventService.PRODUCT_KEY_PREFIX;
+        String suffix = "}" + NOTIFY_KEY_SUFFIX;
+        if (!notifyKey.startsWith(prefix) || !notifyKey.endsWith(suffix)) {
+            return null;
+        }
+        String productId = notifyKey.substring(prefix.length(), notifyKey.length() - suffix.length());
+        int segment = productId.indexOf(SEGMENT_KEY_INFIX);
+        return segment >= 0 ? productId.substring(0, segment) : productId;
+    }
+
+    /**
+     * Every key one stock script touches: the stock hash plus its buyer record and notify throttle. The companions
+     * carry the stock key as Redis Cluster hash tag ({stockKey}:...), so a script never spans two slots (CROSSSLOT)
+     * and each segment stays an independent hot spot that can live on its own shard.
+     */
+    private static List<String> stockScriptKeys(String stockKey) {
+        return List.of(stockKey, hashTagged(stockKey, ":buyers"), hashTagged(stockKey, NOTIFY_KEY_SUFFIX));
+    }
+
+    private static String hashTagged(String key, String suffix) {
+        return "{" + key + "}" + suffix;
+    }
+
+    /**
+     * @return >= 0 成功 (剩餘庫存) | -1 key 不存在 | -2 數量不足 | -3 已售完 (stock=0) | -4 超過每人限購
      */
     public long decreaseStock(String productId, int quantity) {
-        String key = "productId:" + productId;
+        return decreaseStock(productId, null, quantity);
+    }
+
+    /**
+     * 分段庫存時依 memberId hash 選擇起始 segment，該段不足時依序嘗試其他 segment；
+     * memberId 不為 null 且有限購時，同一個 Lua 內檢查並累計該會員已購數量
+     *
+     * @return >= 0 成功 (剩餘庫存；分段時為該 segment 的剩餘) | -1 key 不存在 | -2 數量不足 | -3 已售完 | -4 超過每人限購
+     */
+    public long decreaseStock(String productId, String memberId, int quantity) {
+        if (leaseEnabled) {
+            long result = decreaseLeasedStockWithQuota(productId, memberId, quantity);
+            if (result >= 0) {
+                log.info("Stock reduced from local lease. Event ID: {}, Reduced By: {}, Lease Remaining: {}", productId, quantity, result);
+            } else {
+                log.warn("Stock reduction failed. Event ID: {}, Requested Quantity: {}, result={}", productId, quantity, result);
+            }
+            return result;
+        }
+        long result;
+        if (combiner != null && getSegmentCount(productId) <= 1) {
+            result = combiner.decrement(productId, memberId, quantity);
+            if (result == -1) {
+                // Only retry singly when the product was re-preheated with segments; a failed call may have applied
+                stockLayouts.remove(productId);
+                if (getSegmentCount(productId) > 1) {
+                    result = executeOnLayout(LuaScript.DECREASE_STOCK, productId, memberId, quantity);
+                }
+            }
+        } else {
+            // Segmented products are already spread over several keys
+            result = executeOnLayout(LuaScript.DECREASE_STOCK, productId, memberId, quantity);
+        }
+        if (result == -3 || (result == 0 && getSegmentCount(productId) <= 1)) {
+            // Sold-out transition observed by the script: short-circuit further requests on every node
+            soldOutRegistry.markSoldOut(productId);
+        }
+        if (result >= 0) {
+            log.info("Stock reduced successfully. Event ID: {}, Reduced By: {}, Remaining Stock: {}", productId, quantity, result);
+        } else {
+            log.warn("Stock reduction failed. Event ID: {}, Requested Quantity: {}, result={}", productId, quantity, result);
+        }
+        return result;
+    }
+
+    /**
+     * Runs a per-key stock script against the product's current layout (single key or segments)
+     */
+    private long executeOnLayout(LuaScript script, String productId, String memberId, int quantity) {
+        StockLayout layout = getLayout(productId);
+        long result = executeOnLayout(script, productId, memberId, quantity, layout);
+        if (result == -1) {
+            // Layout may have changed since it was cached (re-preheat); reload once and retry
+            stockLayouts.remove(productId);
+            StockLayout reloaded = getLayout(productId);
+            if (reloaded.segments() != layout.segments()) {
+                result = executeOnLayout(script, productId, memberId, quantity, reloaded);
+            }
+        }
+        return result;
+    }
+
+    private long executeOnLayout(LuaScript script, String productId, String memberId, int quantity, StockLayout layout) {
+        int limit = resolveMaxPerMember(layout);
+        return layout.segments() > 1
+                ? executeOnSegments(script, productId, memberId, quantity, layout.segments(), limit)
+                : executeStockScript(script, productId, buildKey(productId), memberId, quantity, limit);
+    }
+
+    /**
+     * 有限購時會員固定在自己的 segment (依 memberId hash)，限購紀錄與該 segment 同 slot、同一個 Lua 內原子檢查；
+     * 代價是該 segment 賣完時此會員不再改扣其他 segment (尾盤時可能看到「數量不足」而其他 segment 仍有少量庫存)。
+     * 無限購時依序 fallover 到其他 segment。
+     */
+    private long executeOnSegments(LuaScript script, String productId, String memberId, int quantity, int segments, int limit) {
+        if (script == LuaScript.DECREASE_STOCK && memberId != null && limit > 0) {
+            long result = executeStockScript(script, productId, buildSegmentKey(productId, homeSegment(memberId, segments)), memberId, quantity, limit);
+            if (result == -3) {
+                Integer total = getStock(productId);
+                if (total != null && total > 0) {
+                    return -2L; // only this member's segment is drained, the product is not sold out
+                }
+            }
+            return result;
+        }
+        int start = memberId != null
+                ? homeSegment(memberId, segments)
+                : ThreadLocalRandom.current().nextInt(segments);
+        boolean insufficient = false;
+        boolean missing = false;
+        for (int i = 0; i < segments; i++) {
+            int index = (start + i) % segments;
+            long result = executeStockScript(script, productId, buildSegmentKey(productId, index), memberId, quantity, limit);
+            if (result >= 0 || result == -4) {
+                return result;
+            }
+            if (result == -2) {
+                insufficient = true;
+            } else if (result == -1) {
+                missing = true;
+            }
+        }
+        // A quantity larger than any single segment is reported as insufficient even if the total would cover it
+        if (insufficient) {
+            return -2L;
+        }
+        return missing ? -1L : -3L;
+    }
+
+    private static int homeSegment(String memberId, int segments) {
+        return Math.floorMod(memberId.hashCode(), segments);
+    }
+
+    private List<Long> executeBatch(String productId, List<StockDecrementCombiner.Request> requests) {
+        List<Object> args = new ArrayList<>(3 + requests.size() * 2);
+        args.add(resolveMaxPerMember(getLayout(productId)));
+        args.add(BUYERS_TTL_SECONDS);
+        args.add(notifyWindowMs);
+        for (StockDecrementCombiner.Request request : requests) {
+            args.add(request.quantity());
+            args.add(request.memberId() != null ? request.memberId() : "");
+        }
+        long start = System.nanoTime();
+        try {
+            List<Long> results = scriptRegistry.execute(LuaScript.BATCH_DECREASE_STOCK,
+                    stockScriptKeys(buildKey(productId)), args.toArray());
+            purchaseMetrics.stockScript(metricName(LuaScript.BATCH_DECREASE_STOCK), productId, 0L, start);
+            log.debug("Combined {} stock decrements into one call. Event ID: {}", requests.size(), productId);
+            return results;
+        } catch (Exception e) {
+            purchaseMetrics.stockScript(metricName(LuaScript.BATCH_DECREASE_STOCK), productId, SCRIPT_ERROR, start);
+            log.error("Exception occurred during batched Redis stock reduction for Event ID: {}", productId, e);
+            return null;
+        }
+    }
+
+    private long executeStockScript(LuaScript script, String productId, String key, String memberId, int quantity, int limit) {
+        long start = System.nanoTime();
         try {
-            DefaultRedisScript<Long> script = new DefaultRedisScript<>(DECREASE_STOCK_LUA, Long.class);
-            Long result = redisTemplate.execute(
-                    script,
-                    Collections.singletonList(key),
-                    String.valueOf(quantity)
-            );
+            Long result = scriptRegistry.execute(script, stockScriptKeys(key),
+                    quantity, memberId != null ? memberId : "", limit, BUYERS_TTL_SECONDS, notifyWindowMs);
+            purchaseMetrics.stockScript(metricName(script), productId, result != null ? result : SCRIPT_ERROR, start);
             if (result == null) {
                 log.error("Redis Lua script returned null for productId: {}", productId);
                 return -1L;
             }
-            if (result >= 0) {
-                log.info("Stock reduced successfully. Event ID: {}, Reduced By: {}, Remaining Stock: {}", productId, quantity, result);
-            } else {
-                log.warn("Stock reduction failed. Event ID: {}, Requested Quantity: {}, result={}", productId, quantity, result);
-            }
             return result;
         } catch (Exception e) {
+            purchaseMetrics.stockScript(metricName(script), productId, SCRIPT_ERROR, start);
             log.error("Exception occurred during Redis stock reduction for Event ID: {}", productId, e);
             return -1L;
         }
     }
 
+    /**
+     * Lease mode with a member limit: the quota is reserved in Redis first (the lease itself knows nothing
+     * about members) and released again when the lease cannot serve the request
+     */
+    private long decreaseLeasedStockWithQuota(String productId, String memberId, int quantity) {
+        int limit = resolveMaxPerMember(getLayout(productId));
+        if (memberId == null || limit <= 0) {
+            return decreaseLeasedStock(productId, memberId, quantity);
+        }
+        if (updateMemberQuota(productId, memberId, quantity, limit) == -4) {
+            return -4L;
+        }
+        long result = decreaseLeasedStock(productId, memberId, quantity);
+        if (result < 0) {
+            updateMemberQuota(productId, memberId, -quantity, limit);
+        }
+        return result;
+    }
+
+    private long updateMemberQuota(String productId, String memberId, int delta, int limit) {
+        long start = System.nanoTime();
+        try {
+            Long result = scriptRegistry.execute(LuaScript.MEMBER_QUOTA, List.of(buildBuyersKey(productId)),
+                    memberId, delta, limit, BUYERS_TTL_SECONDS);
+            purchaseMetrics.stockScript(metricName(LuaScript.MEMBER_QUOTA), productId, result != null ? result : 0L, start);
+            return result != null ? result : 0L;
+        } catch (Exception e) {
+            purchaseMetrics.stockScript(metricName(LuaScript.MEMBER_QUOTA), productId, SCRIPT_ERROR, start);
+            // Fail open: the stock itself is still guarded by the lease
+            log.error("Failed to update member quota. Event ID: {}, Member: {}, Delta: {}", productId, memberId, delta, e);
+            return 0L;
+        }
+    }
+
+    /**
+     * Lease mode decrement — same -1/-2/-3 contract; Redis is only hit when the local lease runs dry
+     */
+    private long decreaseLeasedStock(String productId, String memberId, int quantity) {
+        while (true) {
+            StockLease lease = leases.computeIfAbsent(productId, id -> new StockLease());
+            int left = lease.tryTake(quantity);
+            if (left >= 0) {
+                return left;
+            }
+            lease.lock().lock();
+            try {
+                if (lease.isRetired()) {
+                    continue; // swept concurrently, use the fresh lease
+                }
+                left = lease.tryTake(quantity); // another thread may have refilled meanwhile
+                if (left >= 0) {
+                    return left;
+                }
+                long granted = executeOnLayout(LuaScript.LEASE_STOCK, productId, memberId, Math.max(leaseBlockSize, quantity));
+                if (granted < 0) {
+                    if (lease.remaining() > 0) {
+                        return -2L; // some units left locally, just not enough
+                    }
+                    if (granted == -3) {
+                        // Other nodes may still hold leases, so only this node stops serving
+                        soldOutRegistry.markSoldOutLocally(productId);
+                    }
+                    return granted;
+                }
+                if (lease.endTime() == null) {
+                    lease.setEndTime(readEndTime(productId));
+                }
+                lease.add((int) granted);
+                log.info("Stock lease acquired. Event ID: {}, Granted: {}", productId, granted);
+                left = lease.tryTake(quantity);
+                return left >= 0 ? left : -2L;
+            } finally {
+                lease.lock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Hands idle leases and leases of ended events back to Redis
+     */
+    @Scheduled(fixedDelayString = "${flashsale.stock.lease.sweepIntervalMs:5000}")
+    public void sweepLeases() {
+        if (!leaseEnabled || leases.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        LocalDateTime nowTime = LocalDateTime.now();
+        leases.forEach((productId, lease) -> {
+            boolean idle = now - lease.lastUsedAt() > leaseIdleTimeoutMs;
+            boolean ended = lease.endTime() != null && nowTime.isAfter(lease.endTime());
+            if (idle || ended) {
+                returnLease(productId, lease, ended ? "event ended" : "idle");
+            }
+        });
+    }
+
+    @PreDestroy
+    public void returnAllLeases() {
+        leases.forEach((productId, lease) -> returnLease(productId, lease, "shutdown"));
+    }
+
+    private void returnLease(String productId, StockLease lease, String reason) {
+        lease.lock().lock();
+        try {
+            lease.retire();
+            leases.remove(productId, lease);
+            int units = lease.drain();
+            if (units > 0) {
+                increaseStock(productId, units);
+                log.info("Stock lease returned ({}). Event ID: {}, Units: {}", reason, productId, units);
+            }
+        } finally {
+            lease.lock().unlock();
+        }
+    }
+
+    private LocalDateTime readEndTime(String productId) {
+        try {
+            Object endTime = redisTemplate.opsForHash().get(buildKey(productId), "endTime");
+            return endTime != null ? LocalDateTime.parse((String) endTime) : null;
+        } catch (Exception e) {
+            log.warn("Failed to read endTime for leased productId: {}", productId, e);
+            return null;
+        }
+    }
+
     public void increaseStock(String productId, int quantity) {
-        String key = "productId:" + productId;
+        increaseStock(productId, null, quantity);
+    }
+
+    /**
+     * 回補庫存；memberId 不為 null 時一併歸還該會員的限購額度 (取消訂單 / 建單失敗回滾)
+     */
+    public void increaseStock(String productId, String memberId, int quantity) {
+        String key = restockKey(productId, memberId);
+        releaseLeaseQuota(productId, memberId, quantity);
+        long start = System.nanoTime();
         try {
-            DefaultRedisScript<Long> script = new DefaultRedisScript<>(INCREASE_STOCK_LUA, Long.class);
-            Long result = redisTemplate.execute(
-                    script,
-                    Collections.singletonList(key),
-                    String.valueOf(quantity)
-            );
+            Long result = scriptRegistry.execute(LuaScript.INCREASE_STOCK, stockScriptKeys(key),
+                    quantity, memberId != null ? memberId : "", notifyWindowMs);
+            purchaseMetrics.stockScript(metricName(LuaScript.INCREASE_STOCK), productId, result, start);
             if (result == -1) {
+                stockLayouts.remove(productId);
                 log.warn("Stock increase failed. Event ID: {}, Reason: Key not found", productId);
             } else {
+                if (result - quantity <= 0 || soldOutRegistry.isSoldOut(productId)) {
+                    soldOutRegistry.clearSoldOut(productId);
+                }
                 log.info("Stock increased successfully. Event ID: {}, Increased By: {}, New Stock: {}", productId, quantity, result);
             }
         } catch (Exception e) {
+            purchaseMetrics.stockScript(metricName(LuaScript.INCREASE_STOCK), productId, SCRIPT_ERROR, start);
             log.error("Exception occurred during Redis stock increase for Event ID: {}", productId, e);
         }
     }
+
+    /**
+     * 批次回補同一商品的庫存：一次 script 呼叫加回總量，並歸還每位會員的限購額度 (批次取消逾期訂單)
+     */
+    public void increaseStock(String productId, Map<String, Integer> quantityByMember) {
+        // Segmented: each member's quota is given back on their home segment, one call per segment
+        Map<String, Map<String, Integer>> byKey = new HashMap<>();
+        quantityByMember.forEach((memberId, quantity) ->
+                byKey.computeIfAbsent(restockKey(productId, memberId), key -> new LinkedHashMap<>()).put(memberId, quantity));
+        byKey.forEach((key, members) -> increaseStockOn(productId, key, members));
+    }
+
+    private void increaseStockOn(String productId, String key, Map<String, Integer> quantityByMember) {
+        int total = quantityByMember.values().stream().mapToInt(Integer::intValue).sum();
+        List<Object> args = new ArrayList<>(2 + quantityByMember.size() * 2);
+        args.add(total);
+        args.add(notifyWindowMs);
+        quantityByMember.forEach((memberId, quantity) -> {
+            args.add(memberId);
+            args.add(quantity);
+            releaseLeaseQuota(productId, memberId, quantity);
+        });
+        long start = System.nanoTime();
+        try {
+            Long result = scriptRegistry.execute(LuaScript.BATCH_INCREASE_STOCK, stockScriptKeys(key), args.toArray());
+            purchaseMetrics.stockScript(metricName(LuaScript.BATCH_INCREASE_STOCK), productId, result, start);
+            if (result == -1) {
+                stockLayouts.remove(productId);
+                log.warn("Batch stock increase failed. Product ID: {}, Reason: Key not found", productId);
+            } else {
+                if (result - total <= 0 || soldOutRegistry.isSoldOut(productId)) {
+                    soldOutRegistry.clearSoldOut(productId);
+                }
+                log.info("Stock increased for {} members. Product ID: {}, Increased By: {}, New Stock: {}",
+                        quantityByMember.size(), productId, total, result);
+            }
+        } catch (Exception e) {
+            purchaseMetrics.stockScript(metricName(LuaScript.BATCH_INCREASE_STOCK), productId, SCRIPT_ERROR, start);
+            log.error("Exception occurred during Redis batch stock increase for Product ID: {}", productId, e);
+        }
+    }
+
+    /**
+     * Key restored units go to: the member's home segment (so the script also gives back the quota recorded there),
+     * any segment otherwise, the product hash when unsegmented
+     */
+    private String restockKey(String productId, String memberId) {
+        int segments = getSegmentCount(productId);
+        if (segments <= 1) {
+            return buildKey(productId);
+        }
+        int index = memberId != null && !leaseEnabled
+                ? homeSegment(memberId, segments)
+                : ThreadLocalRandom.current().nextInt(segments);
+        return buildSegmentKey(productId, index);
+    }
+
+    /**
+     * Lease mode keeps the quota in the product-level record (member_quota.lua), which a segment script never sees
+     */
+    private void releaseLeaseQuota(String productId, String memberId, int quantity) {
+        if (leaseEnabled && memberId != null && getSegmentCount(productId) > 1) {
+            int limit = resolveMaxPerMember(getLayout(productId));
+            if (limit > 0) {
+                updateMemberQuota(productId, memberId, -quantity, limit);
+            }
+        }
+    }
+
+    /**
+     * Aggregated Redis stock of a product (sum of all segments when segmented)
+     *
+     * @return current stock, or null when the product is not preheated
+     */
+    public Integer getStock(String productId) {
+        List<Object> values = redisTemplate.opsForHash().multiGet(buildKey(productId), List.of(STOCK_FIELD, SEGMENTS_FIELD));
+        int segments = values.get(1) != null ? Integer.parseInt((String) values.get(1)) : 1;
+        if (segments <= 1) {
+            return values.get(0) != null ? Integer.parseInt((String) values.get(0)) : null;
+        }
+        byte[] field = STOCK_FIELD.getBytes(StandardCharsets.UTF_8);
+        List<Object> segmentStocks = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < segments; i++) {
+                connection.hashCommands().hGet(buildSegmentKey(productId, i).getBytes(StandardCharsets.UTF_8), field);
+            }
+            return null;
+        });
+        int total = 0;
+        for (Object stock : segmentStocks) {
+            if (stock != null) {
+                total += Integer.parseInt((String) stock);
+            }
+        }
+        return total;
+    }
+
+    private static String metricName(LuaScript script) {
+        return script.name().toLowerCase();
+    }
+
+    private int getSegmentCount(String productId) {
+        return getLayout(productId).segments();
+    }
+
+    private int resolveMaxPerMember(StockLayout layout) {
+        return layout.maxPerMember() > 0 ? layout.maxPerMember() : defaultMaxPerMember;
+    }
+
+    private StockLayout getLayout(String productId) {
+        long now = System.currentTimeMillis();
+        StockLayout layout = stockLayouts.get(productId);
+        if (layout == null || now - layout.loadedAt() > SEGMENT_LAYOUT_TTL_MS) {
+            int segments = 1;
+            int maxPerMember = 0;
+            try {
+                List<Object> values = redisTemplate.opsForHash().multiGet(buildKey(productId), List.of(SEGMENTS_FIELD, MAX_PER_MEMBER_FIELD));
+                if (values.get(0) != null) {
+                    segments = Integer.parseInt((String) values.get(0));
+                }
+                if (values.get(1) != null) {
+                    maxPerMember = Integer.parseInt((String) values.get(1));
+                }
+            } catch (Exception e) {
+                log.warn("Failed to read stock layout for productId: {}", productId, e);
+            }
+            layout = new StockLayout(segments, maxPerMember, now);
+            stockLayouts.put(productId, layout);
+        }
+        return layout;
+    }
 }
@@ -0,0 +1,122 @@
+package com.flashsale.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description In-JVM sold-out flags per productId, kept in sync across backend nodes through Redis Pub/Sub.
+ * 售完後的請求直接在 JVM 內拒絕，不再打 Redis EVAL。
+ * 旗標只保留 ttlMs：過期後下一個請求重新跑 Lua 檢查，晚到的 SOLD_OUT (在 RESTOCK 之後) 或漏收的 RESTOCK
+ * (pub/sub 斷線) 最多讓回補的庫存暫停販售 ttlMs，不會永久卡住。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SoldOutRegistry implements MessageListener {
+
+    public static final String SOLD_OUT_CHANNEL = "flashsale:stock:sold-out";
+
+    private static final String SOLD_OUT_PREFIX = "SOLD_OUT:";
+    private static final String RESTOCK_PREFIX = "RESTOCK:";
+
+    @Qualifier("redisTemplateDb0")
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${flashsale.stock.soldOut.ttlMs:1000}")
+    private long ttlMs = 1000;
+
+    // productId -> System.nanoTime() after which the flag no longer counts
+    private final Map<String, Long> soldOutProducts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(SOLD_OUT_CHANNEL));
+    }
+
+    public boolean isSoldOut(String productId) {
+        Long expiresAt = soldOutProducts.get(productId);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - expiresAt >= 0) {
+            soldOutProducts.remove(productId, expiresAt); // expired: let the next request re-check in Redis
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lua 觀察到售完 (剩餘 0 或 -3) 時呼叫；每個節點只在本地第一次標記時廣播，避免廣播風暴
+     */
+    public void markSoldOut(String productId) {
+        if (flag(productId)) {
+            log.info("Product {} marked sold out locally, broadcasting.", productId);
+            publish(SOLD_OUT_PREFIX + productId);
+        }
+    }
+
+    /**
+     * 只標記本節點 (lease 模式：Redis 已無庫存可租，但其他節點手上可能仍有 lease)
+     */
+    public void markSoldOutLocally(String productId) {
+        flag(productId);
+    }
+
+    /**
+     * 庫存回補到 0 以上時呼叫 (取消訂單 / MQ 失敗回滾 / 重新預熱)
+     */
+    public void clearSoldOut(String productId) {
+        soldOutProducts.remove(productId);
+        publish(RESTOCK_PREFIX + productId);
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (body.startsWith(SOLD_OUT_PREFIX)) {
+            flag(body.substring(SOLD_OUT_PREFIX.length()));
+        } else if (body.startsWith(RESTOCK_PREFIX)) {
+            String productId = body.substring(RESTOCK_PREFIX.length());
+            if (soldOutProducts.remove(productId) != null) {
+                log.info("Product {} restocked, sold-out flag cleared.", productId);
+            }
+        } else {
+            log.warn("Unknown sold-out channel message: {}", body);
+        }
+    }
+
+    /**
+     * Sets / renews the flag, true when the product was not flagged (or the flag had expired) before
+     */
+    private boolean flag(String productId) {
+        long now = System.nanoTime();
+        Long previous = soldOutProducts.put(productId, now + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+        return previous == null || now - previous >= 0;
+    }
+
+    private void publish(String body) {
+        try {
+            redisTemplate.convertAndSend(SOLD_OUT_CHANNEL, body);
+        } catch (Exception e) {
+            // Local flag is already applied; other nodes will still learn it from their own Lua results
+            log.error("Failed to publish sold-out message: {}", body, e);
+        }
+    }
+}
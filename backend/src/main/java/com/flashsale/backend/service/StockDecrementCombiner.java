@@ -0,0 +1,115 @@
+package com.flashsale.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @description Flat combiner for stock decrements of the same product.
+ * 第一個到達的 thread 成為 leader，等待 window 或湊滿 maxBatch 後以一次 Redis 呼叫處理整批，其餘 thread 只等結果。
+ * @author Yang-Hsu
+ */
+class StockDecrementCombiner {
+
+    record Request(String memberId, int quantity) {
+    }
+
+    @FunctionalInterface
+    interface BatchExecutor {
+        /**
+         * @return one result per request, in the same order
+         */
+        List<Long> execute(String productId, List<Request> requests);
+    }
+
+    private static final class Slot {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition closed = lock.newCondition();
+        private Batch open;
+    }
+
+    private static final class Batch {
+        private final List<Request> requests = new ArrayList<>();
+        private final CompletableFuture<List<Long>> results = new CompletableFuture<>();
+    }
+
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BatchExecutor executor;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    StockDecrementCombiner(long windowMicros, int maxBatch, BatchExecutor executor) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.executor = executor;
+    }
+
+    /**
+     * @return result of this request, same contract as RedisStockService.decreaseStock
+     */
+    long decrement(String productId, String memberId, int quantity) {
+        Slot slot = slots.computeIfAbsent(productId, id -> new Slot());
+        Batch batch;
+        int index;
+        boolean leader;
+        slot.lock.lock();
+        try {
+            batch = slot.open;
+            leader = batch == null;
+            if (leader) {
+                batch = new Batch();
+                slot.open = batch;
+            }
+            index = batch.requests.size();
+            batch.requests.add(new Request(memberId, quantity));
+            if (batch.requests.size() >= maxBatch) {
+                slot.open = null; // full: close now and wake the leader
+                slot.closed.signalAll();
+            } else if (leader) {
+                awaitWindow(slot, batch);
+            }
+        } finally {
+            slot.lock.unlock();
+        }
+        if (leader) {
+            // Requests list is frozen once the batch left slot.open
+            batch.results.complete(executeSafely(productId, batch.requests));
+        }
+        return batch.results.join().get(index);
+    }
+
+    private void awaitWindow(Slot slot, Batch batch) {
+        long remaining = windowNanos;
+        try {
+            while (slot.open == batch && remaining > 0) {
+                remaining = slot.closed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // stop waiting, still serve what was collected
+        }
+        if (slot.open == batch) {
+            slot.open = null;
+        }
+    }
+
+    private List<Long> executeSafely(String productId, List<Request> requests) {
+        try {
+            List<Long> results = executor.execute(productId, requests);
+            if (results != null && results.size() == requests.size()) {
+                return results;
+            }
+        } catch (Exception e) {
+            // Reported as -1 below, the caller treats it like a failed single call
+        }
+        List<Long> failed = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            failed.add(-1L);
+        }
+        return failed;
+    }
+}
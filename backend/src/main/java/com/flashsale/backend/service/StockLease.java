@@ -0,0 +1,77 @@
+package com.flashsale.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @description Stock leased by this node from the Redis counter for one product.
+ * Decrements are lock-free (CAS); only refills and returns take the lock.
+ * @author Yang-Hsu
+ */
+class StockLease {
+
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile long lastUsedAt = System.currentTimeMillis();
+    private volatile LocalDateTime endTime;
+    private volatile boolean retired;
+
+    /**
+     * @return remaining units after taking, or -1 when the lease holds less than quantity
+     */
+    int tryTake(int quantity) {
+        lastUsedAt = System.currentTimeMillis();
+        while (true) {
+            int current = remaining.get();
+            if (current < quantity) {
+                return -1;
+            }
+            if (remaining.compareAndSet(current, current - quantity)) {
+                return current - quantity;
+            }
+        }
+    }
+
+    void add(int units) {
+        remaining.addAndGet(units);
+    }
+
+    /**
+     * Takes every unit out of the lease so it can be handed back to Redis
+     */
+    int drain() {
+        return remaining.getAndSet(0);
+    }
+
+    int remaining() {
+        return remaining.get();
+    }
+
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    long lastUsedAt() {
+        return lastUsedAt;
+    }
+
+    LocalDateTime endTime() {
+        return endTime;
+    }
+
+    void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    /**
+     * A retired lease was removed from the pool; refills must go to the new instance. Guarded by lock().
+     */
+    boolean isRetired() {
+        return retired;
+    }
+
+    void retire() {
+        retired = true;
+    }
+}
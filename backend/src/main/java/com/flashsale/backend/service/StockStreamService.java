@@ -0,0 +1,151 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.common.ApiResponse;
+import com.flashsale.backend.common.ResultCode;
+import com.flashsale.backend.dto.response.DashboardStockResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @description Live admin stock stream (SSE). The stock Lua scripts publish their notify key ("{productId:{id}}:notify",
+ * per segment when segmented) at most once per key per interval; this node re-reads only those products and pushes the rows whose Redis / DB stock changed.
+ * 收到通知後商品會持續被追蹤 settleMs，用來補上節流視窗內的後續變化與 MQ 寫入 MySQL 後的 DB 庫存。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockStreamService implements MessageListener {
+
+    private static final String SNAPSHOT_EVENT = "snapshot";
+    private static final String STOCK_EVENT = "stock";
+
+    private final RedisMessageListenerContainer listenerContainer;
+    private final DashboardService dashboardService;
+
+    @Value("${flashsale.stock.stream.settleMs:5000}")
+    private long settleMs;
+
+    @Value("${flashsale.stock.stream.heartbeatMs:15000}")
+    private long heartbeatMs;
+
+    @Value("${flashsale.stock.stream.emitterTimeoutMs:1800000}")
+    private long emitterTimeoutMs;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    // productId -> epoch ms until which the product is re-read every tick
+    private final Map<String, Long> watched = new ConcurrentHashMap<>();
+    // productId -> last row pushed to the admins, deltas are computed against it
+    private final Map<String, DashboardStockResponse> lastSent = new ConcurrentHashMap<>();
+    private volatile long lastPushAt;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisStockService.STOCK_CHANGED_CHANNEL));
+    }
+
+    /**
+     * New admin connection: one full snapshot, then only changed rows
+     */
+    public SseEmitter connect() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        List<DashboardStockResponse> snapshot = dashboardService.getStocks();
+        snapshot.forEach(row -> lastSent.putIfAbsent(row.getProductId(), row));
+        if (send(emitter, SNAPSHOT_EVENT, snapshot)) {
+            emitters.add(emitter);
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        if (emitters.isEmpty()) {
+            return; // nobody is watching on this node
+        }
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String productId = RedisStockService.productIdOfNotifyKey(body);
+        if (productId == null) {
+            log.warn("Unknown stock change message: {}", body);
+            return;
+        }
+        watched.put(productId, System.currentTimeMillis() + settleMs);
+    }
+
+    /**
+     * One coalesced update per interval: pipelined re-read of the watched products, push what actually changed
+     */
+    @Scheduled(fixedDelayString = "${flashsale.stock.stream.intervalMs:500}")
+    public void push() {
+        if (emitters.isEmpty()) {
+            watched.clear();
+            lastSent.clear();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        watched.values().removeIf(until -> until < now);
+        List<DashboardStockResponse> changed = new ArrayList<>();
+        if (!watched.isEmpty()) {
+            for (DashboardStockResponse row : dashboardService.getStocks(List.copyOf(watched.keySet()))) {
+                if (!row.equals(lastSent.put(row.getProductId(), row))) {
+                    changed.add(row);
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            broadcast(STOCK_EVENT, changed);
+        } else if (now - lastPushAt >= heartbeatMs) {
+            heartbeat(); // detects admins that went away without closing the stream
+        }
+    }
+
+    private void broadcast(String event, Object data) {
+        lastPushAt = System.currentTimeMillis();
+        emitters.forEach(emitter -> {
+            if (!send(emitter, event, data)) {
+                emitters.remove(emitter);
+            }
+        });
+    }
+
+    private void heartbeat() {
+        lastPushAt = System.currentTimeMillis();
+        emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        });
+    }
+
+    private static boolean send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(new ApiResponse<>(ResultCode.SUCCESS, data)));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.repository.EventRepository;
+import com.flashsale.backend.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description Write-behind MySQL stock (flashsale.stock.writeBehind.enabled=true).
+ * Consumer 不再逐筆扣 events.stock，只在訂單列標記 stock_pending；本排程每個 interval 把待套用訂單依 event 彙總，
+ * 一次 UPDATE 扣減並清除標記。兩者在同一交易內，程序崩潰不會遺失或重複套用 delta。
+ * 多節點以 FOR UPDATE SKIP LOCKED 分工，不會互相等待。
+ * @author Yang-Hsu
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "flashsale.stock.writeBehind.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class StockWriteBehindFlusher {
+
+    private static final String METRIC_PREFIX = "flashsale.stock.writebehind";
+    private static final String SELECT_PENDING_SQL =
+            "SELECT order_id, event_id, quantity FROM orders WHERE stock_pending = 1 LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderRepository orderRepository;
+    private final EventRepository eventRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${flashsale.stock.writeBehind.batchSize:2000}")
+    private int batchSize;
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private record PendingOrder(String orderId, String eventId, int quantity) {
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        meterRegistry.gauge(METRIC_PREFIX + ".lag", lagMillis, AtomicLong::get);
+    }
+
+    @Scheduled(fixedDelayString = "${flashsale.stock.writeBehind.flushIntervalMs:1000}")
+    public void flush() {
+        try {
+            int applied;
+            do {
+                applied = flushBatch();
+            } while (applied == batchSize);
+            LocalDateTime oldest = orderRepository.findOldestStockPendingCreatedAt();
+            lagMillis.set(oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()) : 0);
+        } catch (Exception e) {
+            log.error("Write-behind stock flush failed, pending deltas stay flagged for the next run.", e);
+        }
+    }
+
+    /**
+     * @return number of orders applied to events.stock
+     */
+    int flushBatch() {
+        Integer applied = transactionTemplate.execute(status -> {
+            List<PendingOrder> pending = jdbcTemplate.query(SELECT_PENDING_SQL,
+                    (rs, row) -> new PendingOrder(rs.getString(1), rs.getString(2), rs.getInt(3)), batchSize);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            // Sorted so concurrent flushes (and batch consumers) lock event rows in the same order
+            Map<String, Integer> deltaByEvent = new TreeMap<>();
+            List<String> orderIds = new ArrayList<>(pending.size());
+            for (PendingOrder order : pending) {
+                deltaByEvent.merge(order.eventId(), order.quantity(), Integer::sum);
+                orderIds.add(order.orderId());
+            }
+            deltaByEvent.forEach(eventRepository::applyStockDelta);
+            orderRepository.clearStockPending(orderIds);
+            log.info("Write-behind applied {} orders to {} events", pending.size(), deltaByEvent.size());
+            return pending.size();
+        });
+        int count = applied != null ? applied : 0;
+        meterRegistry.counter(METRIC_PREFIX + ".applied").increment(count);
+        return count;
+    }
+}
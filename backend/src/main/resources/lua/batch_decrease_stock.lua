@@ -0,0 +1,43 @@
+-- Combined decrements of one unsegmented product, allocated in arrival order
+-- KEYS[1] stock hash, KEYS[2] buyers hash, KEYS[3] notify throttle
+-- ARGV[1] max quantity per member (0 = unlimited), ARGV[2] buyers TTL seconds, ARGV[3] notify window ms, then (quantity, memberId) per request
+-- return one result per request, same codes as decrease_stock.lua
+local n = (#ARGV - 3) / 2
+local results = {}
+local currentStock = redis.call('HGET', KEYS[1], 'stock')
+if not currentStock then
+  for i = 1, n do results[i] = -1 end
+  return results
+end
+currentStock = tonumber(currentStock)
+local limit = tonumber(ARGV[1])
+local bought = {}
+local recorded = false
+for i = 1, n do
+  local requestQty = tonumber(ARGV[2 * i + 2])
+  local member = ARGV[2 * i + 3]
+  local checkLimit = member ~= '' and limit > 0
+  if checkLimit and bought[member] == nil then
+    bought[member] = tonumber(redis.call('HGET', KEYS[2], member) or '0')
+  end
+  if currentStock <= 0 then
+    results[i] = -3
+  elseif checkLimit and bought[member] + requestQty > limit then
+    results[i] = -4
+  elseif currentStock >= requestQty then
+    currentStock = currentStock - requestQty
+    if checkLimit then
+      bought[member] = bought[member] + requestQty
+      redis.call('HINCRBY', KEYS[2], member, requestQty)
+      recorded = true
+    end
+    results[i] = currentStock
+  else
+    results[i] = -2
+  end
+end
+redis.call('HSET', KEYS[1], 'stock', tostring(currentStock))
+if recorded and redis.call('TTL', KEYS[2]) < 0 then redis.call('EXPIRE', KEYS[2], ARGV[2]) end
+-- Change notification for the admin stock stream: at most one PUBLISH per product per window (0 = off)
+if tonumber(ARGV[3]) > 0 and redis.call('SET', KEYS[3], '1', 'PX', ARGV[3], 'NX') then redis.call('PUBLISH', 'flashsale:stock:changed', KEYS[3]) end
+return results
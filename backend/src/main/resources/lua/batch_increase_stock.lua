@@ -0,0 +1,15 @@
+-- KEYS[1] stock hash, KEYS[2] buyers hash, KEYS[3] notify throttle
+-- ARGV[1] total quantity, ARGV[2] notify window ms, ARGV[3..] memberId, quantity pairs (quota give-back)
+-- return new stock | -1 key missing
+local currentStock = redis.call('HGET', KEYS[1], 'stock')
+if not currentStock then return -1 end
+local newStock = tonumber(currentStock) + tonumber(ARGV[1])
+redis.call('HSET', KEYS[1], 'stock', tostring(newStock))
+for i = 3, #ARGV, 2 do
+  if redis.call('HEXISTS', KEYS[2], ARGV[i]) == 1 then
+    if redis.call('HINCRBY', KEYS[2], ARGV[i], -tonumber(ARGV[i + 1])) <= 0 then redis.call('HDEL', KEYS[2], ARGV[i]) end
+  end
+end
+-- Change notification for the admin stock stream: at most one PUBLISH per product per window (0 = off)
+if tonumber(ARGV[2]) > 0 and redis.call('SET', KEYS[3], '1', 'PX', ARGV[2], 'NX') then redis.call('PUBLISH', 'flashsale:stock:changed', KEYS[3]) end
+return newStock
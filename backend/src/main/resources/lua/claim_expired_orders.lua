@@ -0,0 +1,12 @@
+-- Claims due payment deadlines from one time bucket; ZREM makes each claim exclusive across nodes
+-- KEYS[1] bucket zset (member orderId, score deadline ms), KEYS[2] bucket index zset
+-- ARGV[1] now (epoch ms), ARGV[2] max orders to claim, ARGV[3] bucket id, ARGV[4] '1' when the bucket can no longer receive deadlines
+-- return claimed orderIds
+local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+if #due > 0 then
+  redis.call('ZREM', KEYS[1], unpack(due))
+end
+if ARGV[4] == '1' and redis.call('ZCARD', KEYS[1]) == 0 then
+  redis.call('ZREM', KEYS[2], ARGV[3])
+end
+return due
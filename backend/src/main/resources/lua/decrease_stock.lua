@@ -0,0 +1,27 @@
+-- KEYS[1] stock hash (productId:{id} or a segment), KEYS[2] buyers hash ({KEYS[1]}:buyers), KEYS[3] notify throttle ({KEYS[1]}:notify)
+-- KEYS[2] / KEYS[3] carry KEYS[1] as hash tag: one cluster slot per stock key, a segment never touches product-wide keys
+-- ARGV[1] quantity, ARGV[2] memberId ('' = no limit check), ARGV[3] max quantity per member (0 = unlimited), ARGV[4] buyers TTL seconds,
+-- ARGV[5] notify window ms
+-- return >= 0 remaining | -1 key missing | -2 insufficient | -3 sold out | -4 member limit exceeded
+local currentStock = redis.call('HGET', KEYS[1], 'stock')
+if not currentStock then return -1 end
+currentStock = tonumber(currentStock)
+local requestQty = tonumber(ARGV[1])
+if currentStock <= 0 then return -3 end
+local limit = tonumber(ARGV[3])
+local checkLimit = ARGV[2] ~= '' and limit > 0
+if checkLimit then
+  local bought = tonumber(redis.call('HGET', KEYS[2], ARGV[2]) or '0')
+  if bought + requestQty > limit then return -4 end
+end
+if currentStock >= requestQty then
+  local newStock = currentStock - requestQty
+  redis.call('HSET', KEYS[1], 'stock', tostring(newStock))
+  if checkLimit then
+    redis.call('HINCRBY', KEYS[2], ARGV[2], requestQty)
+    if redis.call('TTL', KEYS[2]) < 0 then redis.call('EXPIRE', KEYS[2], ARGV[4]) end
+  end
+  -- Change notification for the admin stock stream: at most one PUBLISH per stock key per window (0 = off)
+  if tonumber(ARGV[5]) > 0 and redis.call('SET', KEYS[3], '1', 'PX', ARGV[5], 'NX') then redis.call('PUBLISH', 'flashsale:stock:changed', KEYS[3]) end
+  return newStock
+else return -2 end
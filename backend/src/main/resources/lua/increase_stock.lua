@@ -0,0 +1,16 @@
+-- KEYS[1] stock hash, KEYS[2] buyers hash, KEYS[3] notify throttle
+-- ARGV[1] quantity, ARGV[2] memberId ('' = stock only), ARGV[3] notify window ms
+-- return new stock | -1 key missing
+local currentStock = redis.call('HGET', KEYS[1], 'stock')
+if not currentStock then return -1 end
+currentStock = tonumber(currentStock)
+local requestQty = tonumber(ARGV[1])
+local newStock = currentStock + requestQty
+redis.call('HSET', KEYS[1], 'stock', tostring(newStock))
+if ARGV[2] ~= '' and redis.call('HEXISTS', KEYS[2], ARGV[2]) == 1 then
+  -- Give the member's quota back together with the stock (cancel / rollback)
+  if redis.call('HINCRBY', KEYS[2], ARGV[2], -requestQty) <= 0 then redis.call('HDEL', KEYS[2], ARGV[2]) end
+end
+-- Change notification for the admin stock stream: at most one PUBLISH per product per window (0 = off)
+if tonumber(ARGV[3]) > 0 and redis.call('SET', KEYS[3], '1', 'PX', ARGV[3], 'NX') then redis.call('PUBLISH', 'flashsale:stock:changed', KEYS[3]) end
+return newStock
@@ -0,0 +1,11 @@
+-- KEYS[1] stock hash, KEYS[3] notify throttle; ARGV[1] requested lease size, ARGV[5] notify window ms (same argument list as decrease_stock.lua)
+-- return granted units (min(requested, stock)) | -1 key missing | -3 sold out
+local currentStock = redis.call('HGET', KEYS[1], 'stock')
+if not currentStock then return -1 end
+currentStock = tonumber(currentStock)
+if currentStock <= 0 then return -3 end
+local granted = math.min(currentStock, tonumber(ARGV[1]))
+redis.call('HSET', KEYS[1], 'stock', tostring(currentStock - granted))
+-- Change notification for the admin stock stream: at most one PUBLISH per product per window (0 = off)
+if tonumber(ARGV[5]) > 0 and redis.call('SET', KEYS[3], '1', 'PX', ARGV[5], 'NX') then redis.call('PUBLISH', 'flashsale:stock:changed', KEYS[3]) end
+return granted
@@ -0,0 +1,15 @@
+-- Lease mode only: stock is served from the node's lease, the per-member record still lives in Redis
+-- KEYS[1] buyers hash, ARGV[1] memberId, ARGV[2] delta (> 0 reserve, < 0 release), ARGV[3] max quantity per member, ARGV[4] buyers TTL seconds
+-- return quantity recorded for the member after the change | -4 member limit exceeded
+local delta = tonumber(ARGV[2])
+if delta > 0 then
+  local bought = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')
+  if bought + delta > tonumber(ARGV[3]) then return -4 end
+end
+local total = redis.call('HINCRBY', KEYS[1], ARGV[1], delta)
+if total <= 0 then
+  redis.call('HDEL', KEYS[1], ARGV[1])
+  return 0
+end
+if redis.call('TTL', KEYS[1]) < 0 then redis.call('EXPIRE', KEYS[1], ARGV[4]) end
+return total
@@ -0,0 +1,49 @@
+package com.flashsale.backend.common.metrics;
+
+import com.flashsale.backend.common.ResultCode;
+import com.flashsale.backend.exception.BusinessException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @description PurchaseMetricsTest — timers carry event / result tags and step timing chains
+ * @author Yang-Hsu
+ */
+class PurchaseMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PurchaseMetrics metrics = new PurchaseMetrics(registry);
+
+    @Test
+    @DisplayName("建單計時 - 依活動與 ResultCode 分開統計")
+    void orderCreated_TaggedByEventAndResultCode() {
+        long start = System.nanoTime();
+        metrics.orderCreated("event-1", ResultCode.SUCCESS, start);
+        metrics.orderCreated("event-1", PurchaseMetrics.resultOf(new BusinessException(ResultCode.STOCK_SOLD_OUT)), start);
+        metrics.orderCreated(null, PurchaseMetrics.resultOf(new IllegalStateException()), start);
+
+        assertEquals(1, registry.get("flashsale.purchase.order.create").tag("event", "event-1").tag("result", "SUCCESS").timer().count());
+        assertEquals(1, registry.get("flashsale.purchase.order.create").tag("result", "STOCK_SOLD_OUT").timer().count());
+        assertEquals(1, registry.get("flashsale.purchase.order.create").tag("event", "none").tag("result", "SYSTEM_ERROR").timer().count());
+    }
+
+    @Test
+    @DisplayName("步驟計時 - 回傳值為下一步起點；Lua 回傳碼轉成 result 標籤")
+    void steps_ChainAndDecodeStockResult() {
+        long start = System.nanoTime();
+        long next = metrics.consumerStep(PurchaseMetrics.CREATE_QUEUE, "save", "event-1", start);
+        metrics.consumerStep(PurchaseMetrics.CREATE_QUEUE, "cache", "event-1", next);
+        metrics.stockScript("decrease_stock", "product-1", -4, start);
+
+        assertTrue(next >= start);
+        Timer save = registry.get("flashsale.purchase.consumer.step").tag("step", "save").timer();
+        assertEquals(1, save.count());
+        assertEquals(1, registry.get("flashsale.purchase.stock.script").tag("result", "limit").timer().count());
+        assertEquals("error", PurchaseMetrics.stockResult(Long.MIN_VALUE));
+        assertEquals("ok", PurchaseMetrics.stockResult(0));
+    }
+}
@@ -0,0 +1,31 @@
+package com.flashsale.backend.common.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderIdGeneratorTest {
+
+    @Test
+    @DisplayName("訂單 id 為 UUIDv7，依產生順序遞增並帶有 node id")
+    void nextId_ShouldBeTimeOrderedUuidV7() {
+        OrderIdGenerator generator = new OrderIdGenerator(5);
+
+        String previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            String next = generator.nextId();
+            assertTrue(next.compareTo(previous) > 0, previous + " !< " + next);
+            previous = next;
+        }
+
+        UUID uuid = UUID.fromString(previous);
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(5L, uuid.getLeastSignificantBits() >>> 52 & 0x3FF);
+        assertTrue(Math.abs((uuid.getMostSignificantBits() >>> 16) - System.currentTimeMillis()) < 60_000);
+    }
+}
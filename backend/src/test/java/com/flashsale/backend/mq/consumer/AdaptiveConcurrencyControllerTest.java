@@ -0,0 +1,65 @@
+package com.flashsale.backend.mq.consumer;
+
+import com.flashsale.backend.mq.consumer.AdaptiveConcurrencyController.Decision;
+import com.flashsale.backend.mq.consumer.AdaptiveConcurrencyController.ListenerState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveConcurrencyControllerTest {
+
+    private AdaptiveConcurrencyController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new AdaptiveConcurrencyController(null, null, null);
+        ReflectionTestUtils.setField(controller, "minConsumers", 1);
+        ReflectionTestUtils.setField(controller, "maxConsumers", 16);
+        ReflectionTestUtils.setField(controller, "scaleUpDepthPerConsumer", 200);
+        ReflectionTestUtils.setField(controller, "scaleDownDepthPerConsumer", 20);
+        ReflectionTestUtils.setField(controller, "hysteresisTicks", 3);
+        ReflectionTestUtils.setField(controller, "dbAcquireHighMs", 50d);
+        ReflectionTestUtils.setField(controller, "processingHighMs", 500d);
+        ReflectionTestUtils.setField(controller, "batchProcessingHighMs", 5000d);
+    }
+
+    @Test
+    @DisplayName("積壓需連續超過門檻才擴增，中途回落則重新計算")
+    void decide_Backlog_ScalesUpOnlyAfterHysteresis() {
+        ListenerState state = new ListenerState(2, 0);
+
+        assertEquals(Decision.HOLD, controller.decide(state, 1000, 5, 1));
+        assertEquals(Decision.HOLD, controller.decide(state, 1000, 5, 1));
+        assertEquals(Decision.HOLD, controller.decide(state, 100, 5, 1)); // in the dead band: streak resets
+        assertEquals(Decision.HOLD, controller.decide(state, 1000, 5, 1));
+        assertEquals(Decision.HOLD, controller.decide(state, 1000, 5, 1));
+        assertEquals(Decision.UP, controller.decide(state, 1000, 5, 1));
+    }
+
+    @Test
+    @DisplayName("Hikari 取得連線等待過高 - 即使有積壓也立即縮減")
+    void decide_DbSaturated_BacksOffImmediately() {
+        ListenerState state = new ListenerState(8, 0);
+
+        assertEquals(Decision.DB_BACKOFF, controller.decide(state, 10_000, 5, 120));
+
+        state.consumers = 1;
+        assertEquals(Decision.HOLD, controller.decide(state, 10_000, 5, 120)); // already at the floor
+    }
+
+    @Test
+    @DisplayName("Batch listener - 整批處理時間以 batchProcessingHighMs 判斷，正常的整批不會被視為 DB 飽和")
+    void decide_BatchListener_UsesBatchThreshold() {
+        ListenerState batch = new ListenerState(true, 4, 0);
+
+        assertEquals(Decision.HOLD, controller.decide(batch, 10_000, 1_200, 1)); // 100 messages at 12 ms each
+        assertEquals(Decision.HOLD, controller.decide(batch, 10_000, 1_200, 1));
+        assertEquals(Decision.UP, controller.decide(batch, 10_000, 1_200, 1));
+
+        assertEquals(Decision.DB_BACKOFF, controller.decide(batch, 10_000, 6_000, 1));
+        assertEquals(Decision.DB_BACKOFF, controller.decide(new ListenerState(4, 0), 10_000, 1_200, 1)); // per-message listener
+    }
+}
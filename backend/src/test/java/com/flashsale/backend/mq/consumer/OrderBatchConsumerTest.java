@@ -0,0 +1,150 @@
+package com.flashsale.backend.mq.consumer;
+
+import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.message.OrderCreateMessage;
+import com.flashsale.backend.repository.EventRepository;
+import com.flashsale.backend.service.OrderExpiryService;
+import com.flashsale.backend.service.OrderResultNotifier;
+import com.flashsale.backend.service.RedisOrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchConsumerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private RedisOrderService redisOrderService;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private OrderConsumer orderConsumer;
+
+    @Mock
+    private OrderExpiryService orderExpiryService;
+
+    @Mock
+    private OrderResultNotifier orderResultNotifier;
+
+    @InjectMocks
+    private OrderBatchConsumer orderBatchConsumer;
+
+    private final String eventA = UUID.randomUUID().toString();
+    private final String eventB = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    private static Order order(String eventId, int quantity) {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setMemberId(UUID.randomUUID().toString());
+        order.setProductId(UUID.randomUUID().toString());
+        order.setEventId(eventId);
+        order.setQuantity(quantity);
+        order.setTotalPrice(BigDecimal.TEN);
+        order.setStatus("PENDING");
+        return order;
+    }
+
+    @Test
+    @DisplayName("整批成功 - 每個 event 只扣一次 MySQL 庫存，快取一次 pipeline")
+    void processCreateOrders_Success_ShouldAggregatePerEvent() {
+        List<Order> orders = List.of(order(eventA, 1), order(eventB, 2), order(eventA, 3));
+        when(eventRepository.decreaseStock(anyString(), anyInt())).thenReturn(1);
+
+        orderBatchConsumer.processOrders(orders);
+
+        verify(eventRepository).decreaseStock(eventA, 4);
+        verify(eventRepository).decreaseStock(eventB, 2);
+        verify(redisOrderService, times(1)).setOrderCaches(orders);
+        verify(orderExpiryService, times(1)).scheduleAll(orders);
+        verify(orderConsumer, never()).processCreateOrder(any());
+    }
+
+    @Test
+    @DisplayName("整批失敗 - rollback 後逐筆處理，失敗的單筆送進 DLQ")
+    void processCreateOrders_BatchFails_ShouldFallBackPerMessage() {
+        Order good = order(eventA, 1);
+        Order bad = order(eventB, 1);
+        when(eventRepository.decreaseStock(anyString(), anyInt())).thenAnswer(invocation ->
+                eventB.equals(invocation.getArgument(0)) ? 0 : 1);
+        doThrow(new AmqpRejectAndDontRequeueException("stock")).when(orderConsumer).processCreateOrder(bad);
+
+        orderBatchConsumer.processOrders(List.of(good, bad));
+
+        verify(orderConsumer).processCreateOrder(good);
+        verify(orderConsumer).processCreateOrder(bad);
+        assertNull(good.getVersion()); // JPA has to persist it as a new entity again
+        verify(rabbitTemplate).convertAndSend(RabbitConfig.DEAD_LETTER_EXCHANGE, RabbitConfig.ORDER_ROUTING_KEY, OrderCreateMessage.from(bad));
+        verify(redisOrderService, never()).setOrderCaches(anyList());
+    }
+
+    @Test
+    @DisplayName("DLQ 發送失敗 - 不中斷批次，其餘訂單照常逐筆處理")
+    void processCreateOrders_DlqPublishFails_ShouldContinueBatch() {
+        Order bad = order(eventB, 1);
+        Order good = order(eventA, 1);
+        when(eventRepository.decreaseStock(anyString(), anyInt())).thenReturn(0);
+        doThrow(new AmqpRejectAndDontRequeueException("stock")).when(orderConsumer).processCreateOrder(bad);
+        doThrow(new AmqpConnectException(new RuntimeException("broker down"))).when(rabbitTemplate)
+                .convertAndSend(eq(RabbitConfig.DEAD_LETTER_EXCHANGE), eq(RabbitConfig.ORDER_ROUTING_KEY), any(Object.class));
+
+        orderBatchConsumer.processOrders(List.of(bad, good));
+
+        verify(orderConsumer).processCreateOrder(good);
+    }
+
+    @Test
+    @DisplayName("重複投遞 - 已存在與批內重複的 orderId 不再 insert，其餘照常整批處理，不退回逐筆")
+    void processCreateOrders_Redelivered_ShouldSkipPersistedWithoutFallback() {
+        Order persisted = order(eventA, 1);
+        Order fresh = order(eventA, 2);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of(persisted.getOrderId()));
+        when(eventRepository.decreaseStock(anyString(), anyInt())).thenReturn(1);
+
+        orderBatchConsumer.processOrders(List.of(persisted, fresh, fresh));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), eq(List.of(fresh)), eq(1), any());
+        verify(eventRepository).decreaseStock(eventA, 2);
+        verify(redisOrderService).setOrderCaches(List.of(fresh));
+        verify(orderExpiryService).scheduleAll(List.of(fresh));
+        verify(orderResultNotifier).publishAll(List.of(fresh), OrderResultNotifier.SUCCESS);
+        verify(orderConsumer, never()).processCreateOrder(any());
+    }
+}
@@ -1,9 +1,13 @@
 package com.flashsale.backend.mq.consumer;
 
-import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.common.metrics.PurchaseMetrics;
+import com.flashsale.backend.common.util.OrderIdGenerator;
 import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.message.OrderExpiryMessage;
 import com.flashsale.backend.repository.EventRepository;
 import com.flashsale.backend.repository.OrderRepository;
+import com.flashsale.backend.service.OrderExpiryService;
+import com.flashsale.backend.service.OrderResultNotifier;
 import com.flashsale.backend.service.RedisOrderService;
 import com.flashsale.backend.service.RedisStockService;
 import org.junit.jupiter.api.DisplayName;
@@ -12,7 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -36,7 +40,16 @@ class OrderConsumerTest {
     private RedisOrderService redisOrderService;
 
     @Mock
-    private RabbitTemplate rabbitTemplate;
+    private OrderExpiryService orderExpiryService;
+
+    @Mock
+    private OrderResultNotifier orderResultNotifier;
+
+    @Mock
+    private OrderIdGenerator orderIdGenerator;
+
+    @Mock
+    private PurchaseMetrics purchaseMetrics;
 
     @InjectMocks
     private OrderConsumer orderConsumer;
@@ -72,11 +85,44 @@ class OrderConsumerTest {
 
         verify(redisOrderService, times(1)).setOrderCache(eq(memberId), eq(eventId), any(Order.class)); //step3 : cache order in Redis DB1
 
-        verify(rabbitTemplate, times(1)).convertAndSend(
-                eq(RabbitConfig.ORDER_EXCHANGE),
-                eq(RabbitConfig.TTL_ROUTING_KEY),
-                any(Order.class)
-        ); //step 4 : send to ttl queue(MQ)
+        verify(orderExpiryService, times(1)).schedule(any(Order.class)); //step 4 : schedule payment deadline
+
+        verify(orderResultNotifier, times(1)).publishAfterCommit(any(Order.class), eq(OrderResultNotifier.SUCCESS)); //step 5 : notify the waiting buyer
+    }
+
+    @Test
+    @DisplayName("Write-behind 模式 - 不逐筆扣 MySQL 庫存，只在訂單標記 stock_pending")
+    void processCreateOrder_WriteBehind_ShouldFlagInsteadOfDecrease() {
+        ReflectionTestUtils.setField(orderConsumer, "writeBehind", true);
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setMemberId(UUID.randomUUID().toString());
+        order.setEventId(UUID.randomUUID().toString());
+        order.setQuantity(2);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderConsumer.processCreateOrder(order);
+
+        verify(orderRepository).save(argThat(Order::getStockPending));
+        verify(eventRepository, never()).decreaseStock(anyString(), anyInt());
+        verify(orderExpiryService, times(1)).schedule(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("重複訊息 - 訂單已存在時直接略過，不重複扣 MySQL 庫存")
+    void processCreateOrder_Duplicate_ShouldSkip() {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setMemberId(UUID.randomUUID().toString());
+        order.setEventId(UUID.randomUUID().toString());
+        order.setQuantity(1);
+        when(orderRepository.existsById(order.getOrderId())).thenReturn(true);
+
+        orderConsumer.processCreateOrder(order);
+
+        verify(orderRepository, never()).save(any());
+        verify(eventRepository, never()).decreaseStock(anyString(), anyInt());
+        verify(redisStockService, never()).increaseStock(anyString(), any(), anyInt());
     }
 
     @Test
@@ -88,8 +134,7 @@ class OrderConsumerTest {
         String productId = UUID.randomUUID().toString();
         int quantity = 1;
 
-        Order orderMessage = new Order();
-        orderMessage.setOrderId(orderId);
+        OrderExpiryMessage orderMessage = new OrderExpiryMessage(orderId);
 
         Order existingOrder = new Order();
         existingOrder.setOrderId(orderId);
@@ -108,7 +153,7 @@ class OrderConsumerTest {
 
         verify(redisOrderService, times(1)).deleteOrderCache(memberId, eventId); // step2 : Verify Redis order cache evicted
 
-        verify(redisStockService, times(1)).increaseStock(productId, quantity); // step3 : Verify Redis stock restored
+        verify(redisStockService, times(1)).increaseStock(productId, memberId, quantity); // step3 : Verify Redis stock restored
 
         verify(eventRepository, times(1)).increaseStock(eventId, quantity); // step4 : Verify MySQL stock restored
     }
@@ -118,8 +163,7 @@ class OrderConsumerTest {
     void processCancelOrder_PaidOrder_ShouldDoNothing() {
         String orderId = UUID.randomUUID().toString();
         
-        Order orderMessage = new Order();
-        orderMessage.setOrderId(orderId);
+        OrderExpiryMessage orderMessage = new OrderExpiryMessage(orderId);
 
         Order existingOrder = new Order();
         existingOrder.setOrderId(orderId);
@@ -131,7 +175,7 @@ class OrderConsumerTest {
 
         //Judgement
         verify(orderRepository, never()).save(any());
-        verify(redisStockService, never()).increaseStock(anyString(), anyInt());
+        verify(redisStockService, never()).increaseStock(anyString(), any(), anyInt());
         verify(eventRepository, never()).increaseStock(anyString(), anyInt());
     }
 }
@@ -0,0 +1,109 @@
+package com.flashsale.backend.mq.dispatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashsale.backend.mq.consumer.OrderConsumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisStreamOrderDispatcherTest {
+
+    private static final String STREAM = "flashsale:order:stream";
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private OrderConsumer orderConsumer;
+
+    private RedisStreamOrderDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new RedisStreamOrderDispatcher(redisTemplate, orderConsumer, new ObjectMapper());
+        ReflectionTestUtils.setField(dispatcher, "streamKey", STREAM);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "claimMinIdleMs", 60000L);
+        ReflectionTestUtils.setField(dispatcher, "consumerName", "node-b");
+        lenient().when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+    }
+
+    private static PendingMessage pending(String id, String owner, long idleMs) {
+        return new PendingMessage(RecordId.of(id), Consumer.from(RedisStreamOrderDispatcher.GROUP, owner),
+                Duration.ofMillis(idleMs), 1);
+    }
+
+    @Test
+    @DisplayName("Claim - 只接手閒置超過 claimMinIdleMs 的 pending (例如換了 hostname 的舊節點)")
+    void claimIdle_ShouldOnlyClaimEntriesPastMinIdle() {
+        when(streamOperations.pending(eq(STREAM), eq(RedisStreamOrderDispatcher.GROUP), any(Range.class), eq(50L)))
+                .thenReturn(new PendingMessages(RedisStreamOrderDispatcher.GROUP, List.of(
+                        pending("1-0", "node-a", 120000), pending("2-0", "node-c", 1000))));
+
+        dispatcher.claimIdle();
+
+        verify(streamOperations).claim(STREAM, RedisStreamOrderDispatcher.GROUP, "node-b", Duration.ofMillis(60000),
+                RecordId.of("1-0"));
+    }
+
+    @Test
+    @DisplayName("Trim - MINID 取最舊 pending id，未 ack 的訂單不會被修剪")
+    void trimAcknowledged_ShouldKeepOldestPendingEntry() {
+        StreamInfo.XInfoGroup group = mock(StreamInfo.XInfoGroup.class);
+        when(group.groupName()).thenReturn(RedisStreamOrderDispatcher.GROUP);
+        when(group.lastDeliveredId()).thenReturn("1700000000100-3");
+        StreamInfo.XInfoGroups groups = mock(StreamInfo.XInfoGroups.class);
+        when(groups.stream()).thenReturn(Stream.of(group));
+        when(streamOperations.groups(STREAM)).thenReturn(groups);
+        when(streamOperations.pending(STREAM, RedisStreamOrderDispatcher.GROUP)).thenReturn(new PendingMessagesSummary(
+                RedisStreamOrderDispatcher.GROUP, 2, Range.closed("1700000000099-7", "1700000000100-1"), Map.of("node-a", 2L)));
+        RedisConnection connection = mock(RedisConnection.class);
+        when(redisTemplate.execute(any(RedisCallback.class))).thenAnswer(invocation ->
+                invocation.<RedisCallback<Object>>getArgument(0).doInRedis(connection));
+
+        dispatcher.trimAcknowledged();
+
+        ArgumentCaptor<byte[]> args = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).execute(eq("XTRIM"), args.capture(), args.capture(), args.capture());
+        assertEquals("1700000000099-7", new String(args.getAllValues().get(2), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Stream id 依時間再依序號比較")
+    void compareIds_ShouldCompareNumerically() {
+        assertTrue(RedisStreamOrderDispatcher.compareIds("999-5", "1000-0") < 0);
+        assertTrue(RedisStreamOrderDispatcher.compareIds("1000-10", "1000-9") > 0);
+    }
+}
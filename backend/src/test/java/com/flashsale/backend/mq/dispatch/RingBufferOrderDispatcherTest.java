@@ -0,0 +1,78 @@
+package com.flashsale.backend.mq.dispatch;
+
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.consumer.OrderConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RingBufferOrderDispatcherTest {
+
+    @Mock
+    private OrderConsumer orderConsumer;
+
+    private RingBufferOrderDispatcher dispatcher(int capacity, int consumers) {
+        RingBufferOrderDispatcher dispatcher = new RingBufferOrderDispatcher(orderConsumer, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "capacity", capacity);
+        ReflectionTestUtils.setField(dispatcher, "consumers", consumers);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 16);
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setMemberId(UUID.randomUUID().toString());
+        order.setProductId(UUID.randomUUID().toString());
+        order.setQuantity(1);
+        return order;
+    }
+
+    @Test
+    @DisplayName("Ring 模式 - 訂單交給 consumer 執行緒處理，關閉時先清空 ring")
+    void dispatch_ShouldBeProcessedByConsumer() throws Exception {
+        RingBufferOrderDispatcher dispatcher = dispatcher(64, 2);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(dispatcher.dispatch(order()));
+        }
+        dispatcher.stop();
+
+        verify(orderConsumer, times(10)).processCreateOrder(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("Ring 已滿 - dispatch 回傳 false 讓呼叫端回補庫存")
+    void dispatch_RingFull_ShouldReject() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch taken = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            taken.countDown();
+            release.await();
+            return null;
+        }).when(orderConsumer).processCreateOrder(any(Order.class));
+        RingBufferOrderDispatcher dispatcher = dispatcher(1, 1);
+
+        assertTrue(dispatcher.dispatch(order()));
+        assertTrue(taken.await(1, TimeUnit.SECONDS)); // the only consumer is now busy
+        assertTrue(dispatcher.dispatch(order()));
+        assertFalse(dispatcher.dispatch(order()));
+
+        release.countDown();
+        dispatcher.stop();
+    }
+}
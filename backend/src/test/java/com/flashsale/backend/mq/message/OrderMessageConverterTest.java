@@ -0,0 +1,57 @@
+package com.flashsale.backend.mq.message;
+
+import com.flashsale.backend.config.RabbitConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @description OrderMessageConverterTest — binary round trip and decoding of pre-rollout JSON messages
+ * @author Yang-Hsu
+ */
+class OrderMessageConverterTest {
+
+    private final OrderMessageConverter converter = new OrderMessageConverter();
+
+    @Test
+    @DisplayName("建單訊息 - 二進位編碼來回一致且遠小於 JSON")
+    void createMessage_RoundTrip() {
+        OrderCreateMessage sent = new OrderCreateMessage(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), 2, new BigDecimal("199.90"), "PENDING",
+                LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_000_000));
+
+        Message message = converter.toMessage(sent, new MessageProperties());
+
+        assertEquals(OrderMessageConverter.CONTENT_TYPE, message.getMessageProperties().getContentType());
+        assertTrue(message.getBody().length <= 100); // 4 ids x 17 bytes + fixed fields
+        assertEquals(sent, converter.fromMessage(message));
+    }
+
+    @Test
+    @DisplayName("舊版 JSON Order - 依 consumer queue 轉成對應的 message record")
+    void legacyJson_ShouldDecodePerQueue() {
+        String orderId = UUID.randomUUID().toString();
+        String json = "{\"orderId\":\"" + orderId + "\",\"memberId\":\"m-1\",\"quantity\":1,\"status\":\"PENDING\",\"version\":null,\"createdAt\":null}";
+
+        MessageProperties orderQueue = new MessageProperties();
+        orderQueue.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        orderQueue.setConsumerQueue(RabbitConfig.ORDER_QUEUE);
+        MessageProperties cancelQueue = new MessageProperties();
+        cancelQueue.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        cancelQueue.setConsumerQueue(RabbitConfig.CANCEL_QUEUE);
+
+        OrderCreateMessage create = (OrderCreateMessage) converter.fromMessage(new Message(json.getBytes(StandardCharsets.UTF_8), orderQueue));
+        assertEquals(orderId, create.orderId());
+        assertEquals("m-1", create.memberId());
+        assertEquals(new OrderExpiryMessage(orderId), converter.fromMessage(new Message(json.getBytes(StandardCharsets.UTF_8), cancelQueue)));
+    }
+}
@@ -0,0 +1,152 @@
+package com.flashsale.backend.mq.producer;
+
+import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.message.OrderCreateMessage;
+import com.flashsale.backend.service.OrderResultNotifier;
+import com.flashsale.backend.service.RedisStockService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderMessagePublisherTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RedisStockService redisStockService;
+
+    @Mock
+    private OrderResultNotifier orderResultNotifier;
+
+    private OrderMessagePublisher publisher;
+
+    private final Order order = new Order();
+
+    @BeforeEach
+    void setUp() {
+        publisher = new OrderMessagePublisher(rabbitTemplate, redisStockService, orderResultNotifier, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(publisher, "confirmTimer", new SimpleMeterRegistry().timer("confirm"));
+        ReflectionTestUtils.setField(publisher, "batchSize", 100);
+        ReflectionTestUtils.setField(publisher, "retryBackoffMs", 100L);
+        ReflectionTestUtils.setField(publisher, "retryMaxBackoffMs", 5000L);
+        ReflectionTestUtils.setField(publisher, "maxRetries", 10);
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setMemberId(UUID.randomUUID().toString());
+        order.setProductId(UUID.randomUUID().toString());
+        order.setQuantity(2);
+        // invoke() runs the callback on the same (mocked) template
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+    }
+
+    private CorrelationData sendAndCapture() {
+        publisher.sendBatch(List.of(order));
+        ArgumentCaptor<CorrelationData> captor = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate).convertAndSend(eq(RabbitConfig.ORDER_EXCHANGE), eq(RabbitConfig.ORDER_ROUTING_KEY),
+                eq(OrderCreateMessage.from(order)), captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    @DisplayName("Broker ack - 不回補庫存")
+    void sendBatch_Ack_ShouldKeepStock() {
+        CorrelationData correlation = sendAndCapture();
+
+        correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+
+        verify(redisStockService, never()).increaseStock(anyString(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Broker nack - 回補 Redis 庫存與限購額度")
+    void sendBatch_Nack_ShouldRestoreStock() {
+        CorrelationData correlation = sendAndCapture();
+
+        correlation.getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+
+        verify(redisStockService, times(1)).increaseStock(order.getProductId(), order.getMemberId(), order.getQuantity());
+        verify(orderResultNotifier, times(1)).publish(order, OrderResultNotifier.FAILED);
+    }
+
+    @Test
+    @DisplayName("Confirm 逾時 - 不回補庫存，退避後以同一 orderId 重新發送；遲到的 ack 與重送後的 nack 都不回補")
+    void sweepTimedOut_ShouldRepublishInsteadOfRestoringStock() {
+        ReflectionTestUtils.setField(publisher, "confirmTimeoutMs", -1L); // everything in flight is overdue
+        CorrelationData first = sendAndCapture();
+
+        publisher.sweepTimedOut();
+        first.getFuture().complete(new CorrelationData.Confirm(true, null)); // late ack of the first attempt
+
+        List<Order> batch = new ArrayList<>();
+        assertEquals(1, publisher.drainDueRetries(batch, System.nanoTime() + TimeUnit.MINUTES.toNanos(1)));
+        assertSame(order, batch.get(0));
+
+        // The re-publish is nacked: the first attempt may have landed, so it is queued again rather than restored
+        publisher.sendBatch(List.of(order));
+        ArgumentCaptor<CorrelationData> captor = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, times(2)).convertAndSend(eq(RabbitConfig.ORDER_EXCHANGE), eq(RabbitConfig.ORDER_ROUTING_KEY),
+                eq(OrderCreateMessage.from(order)), captor.capture());
+        captor.getValue().getFuture().complete(new CorrelationData.Confirm(false, "channel closed"));
+
+        verify(redisStockService, never()).increaseStock(anyString(), any(), anyInt());
+        verify(orderResultNotifier, never()).publish(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("In-doubt 訂單重複被 nack - 指數退避後才重送，超過 maxRetries 停放且不回補庫存")
+    void nackInDoubt_ShouldBackOffThenPark() {
+        ReflectionTestUtils.setField(publisher, "maxRetries", 2);
+        ReflectionTestUtils.setField(publisher, "confirmTimeoutMs", -1L);
+        sendAndCapture();
+        publisher.sweepTimedOut(); // retry 1, due after 100 ms
+        List<Order> batch = new ArrayList<>();
+        long now = System.nanoTime();
+        assertEquals(0, publisher.drainDueRetries(batch, now));
+        assertEquals(1, publisher.drainDueRetries(batch, now + TimeUnit.MILLISECONDS.toNanos(150)));
+
+        nackNextAttempt(2); // retry 2, due after 200 ms
+        batch.clear();
+        now = System.nanoTime();
+        assertEquals(0, publisher.drainDueRetries(batch, now));
+        assertEquals(0, publisher.drainDueRetries(batch, now + TimeUnit.MILLISECONDS.toNanos(150)));
+        assertEquals(1, publisher.drainDueRetries(batch, now + TimeUnit.MILLISECONDS.toNanos(250)));
+
+        nackNextAttempt(3); // past maxRetries: parked, not re-queued
+        assertEquals(0, publisher.drainDueRetries(batch, System.nanoTime() + TimeUnit.MINUTES.toNanos(1)));
+        @SuppressWarnings("unchecked")
+        Map<String, Order> parked = (Map<String, Order>) ReflectionTestUtils.getField(publisher, "parked");
+        assertSame(order, parked.get(order.getOrderId()));
+        verify(redisStockService, never()).increaseStock(anyString(), any(), anyInt());
+    }
+
+    private void nackNextAttempt(int attempts) {
+        publisher.sendBatch(List.of(order));
+        ArgumentCaptor<CorrelationData> captor = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, times(attempts)).convertAndSend(eq(RabbitConfig.ORDER_EXCHANGE), eq(RabbitConfig.ORDER_ROUTING_KEY),
+                eq(OrderCreateMessage.from(order)), captor.capture());
+        captor.getValue().getFuture().complete(new CorrelationData.Confirm(false, "channel closed"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.flashsale.backend.mq.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.mq.producer.OrderMessagePublisher.ConfirmOutcome;
+import com.flashsale.backend.service.OrderResultNotifier;
+import com.flashsale.backend.service.RedisStockService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxTest {
+
+    @Mock
+    private OrderMessagePublisher orderMessagePublisher;
+
+    @Mock
+    private RedisStockService redisStockService;
+
+    @Mock
+    private OrderResultNotifier orderResultNotifier;
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private OrderOutbox openOutbox() throws Exception {
+        OrderOutbox outbox = new OrderOutbox(orderMessagePublisher, redisStockService, orderResultNotifier, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outbox, "enabled", true);
+        ReflectionTestUtils.setField(outbox, "path", dir.resolve("outbox.dat").toString());
+        ReflectionTestUtils.setField(outbox, "capacityBytes", 64 * 1024);
+        ReflectionTestUtils.setField(outbox, "fsyncPolicy", OrderOutbox.FsyncPolicy.ALWAYS);
+        ReflectionTestUtils.setField(outbox, "relayBatchSize", 10);
+        ReflectionTestUtils.setField(outbox, "maxBackoffMs", 50L);
+        outbox.open();
+        return outbox;
+    }
+
+    private static Order order(String memberId) {
+        Order order = new Order();
+        order.setMemberId(memberId);
+        order.setProductId(UUID.randomUUID().toString());
+        order.setEventId(UUID.randomUUID().toString());
+        order.setQuantity(1);
+        order.setStatus("PENDING");
+        return order;
+    }
+
+    private static void awaitPending(OrderOutbox outbox, long expected) throws InterruptedException {
+        for (int i = 0; i < 200 && outbox.getStatus().getPendingRecords() != expected; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, outbox.getStatus().getPendingRecords());
+    }
+
+    @Test
+    @DisplayName("Broker ack 後推進 commit offset，backlog 歸零")
+    void append_Acked_ShouldDrainBacklog() throws Exception {
+        when(orderMessagePublisher.sendAndAwaitConfirms(anyList())).thenAnswer(invocation ->
+                Collections.nCopies(invocation.<List<Order>>getArgument(0).size(), ConfirmOutcome.ACK));
+        OrderOutbox outbox = openOutbox();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(outbox.append(order(UUID.randomUUID().toString())));
+        }
+
+        awaitPending(outbox, 0);
+        assertEquals(5L, outbox.getStatus().getRelayedTotal());
+        outbox.close();
+    }
+
+    @Test
+    @DisplayName("Broker 中斷時訂單留在檔案內，重啟後重放")
+    void append_BrokerDown_ShouldReplayAfterRestart() throws Exception {
+        when(orderMessagePublisher.sendAndAwaitConfirms(anyList())).thenAnswer(invocation ->
+                Collections.nCopies(invocation.<List<Order>>getArgument(0).size(), ConfirmOutcome.TIMEOUT));
+        OrderOutbox outbox = openOutbox();
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        outbox.append(order(first));
+        outbox.append(order(second));
+        assertEquals(2L, outbox.getStatus().getPendingRecords());
+        outbox.close(); // simulated crash: nothing was committed
+
+        Set<String> replayed = ConcurrentHashMap.newKeySet();
+        reset(orderMessagePublisher);
+        when(orderMessagePublisher.sendAndAwaitConfirms(anyList())).thenAnswer(invocation -> {
+            List<Order> batch = invocation.getArgument(0);
+            batch.forEach(order -> replayed.add(order.getMemberId()));
+            return Collections.nCopies(batch.size(), ConfirmOutcome.ACK);
+        });
+        OrderOutbox restarted = openOutbox();
+
+        awaitPending(restarted, 0);
+        assertEquals(Set.of(first, second), replayed);
+        verify(redisStockService, never()).increaseStock(anyString(), any(), anyInt());
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("壓縮邊界 - 尾端加上結束標記會蓋到舊位置時不搬移；有空間時才搬到檔頭")
+    void compact_TailPlusEndMarkerMustFitBeforeOldPosition() throws Exception {
+        // the relay thread may not have picked the records up yet
+        lenient().when(orderMessagePublisher.sendAndAwaitConfirms(anyList())).thenAnswer(invocation ->
+                Collections.nCopies(invocation.<List<Order>>getArgument(0).size(), ConfirmOutcome.TIMEOUT));
+        OrderOutbox outbox = openOutbox();
+        long start = (long) ReflectionTestUtils.getField(outbox, "writePos");
+        for (int i = 0; i < 3; i++) {
+            outbox.append(order(UUID.randomUUID().toString())); // same-sized records
+        }
+        long size = ((long) ReflectionTestUtils.getField(outbox, "writePos") - start) / 3;
+
+        // One record committed, one pending: the tail is exactly as long as the gap before it
+        ReflectionTestUtils.setField(outbox, "commitPos", start + size);
+        ReflectionTestUtils.setField(outbox, "writePos", start + 2 * size);
+        ReflectionTestUtils.invokeMethod(outbox, "compact");
+        assertEquals(0L, (long) ReflectionTestUtils.getField(outbox, "shift"));
+        assertNotNull(ReflectionTestUtils.invokeMethod(outbox, "readPayload", start + size));
+
+        // Two committed, one pending: room for the tail and its end marker, so it moves to the start
+        ReflectionTestUtils.setField(outbox, "commitPos", start + 2 * size);
+        ReflectionTestUtils.setField(outbox, "writePos", start + 3 * size);
+        ReflectionTestUtils.invokeMethod(outbox, "compact");
+        assertEquals(2 * size, (long) ReflectionTestUtils.getField(outbox, "shift"));
+        assertNotNull(ReflectionTestUtils.invokeMethod(outbox, "readPayload", start));
+        outbox.close();
+    }
+}
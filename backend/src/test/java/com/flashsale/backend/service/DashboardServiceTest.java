@@ -0,0 +1,64 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.dto.response.DashboardStockResponse;
+import com.flashsale.backend.repository.EventRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+/**
+ * @description DashboardServiceTest — concurrent dashboard refreshes share one snapshot computation
+ * @author Yang-Hsu
+ */
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Test
+    @DisplayName("多位管理員同時刷新 - 只計算一次，共用同一份快照")
+    void getStocks_ConcurrentRefresh_LoadsOnce() throws Exception {
+        DashboardService service = spy(new DashboardService(redisTemplate, eventRepository));
+        ReflectionTestUtils.setField(service, "snapshotTtlMs", 60_000L);
+        CountDownLatch loading = new CountDownLatch(1);
+        List<DashboardStockResponse> stocks = List.of(DashboardStockResponse.builder().productId("p-1").redisStock(5).dbStock(5).build());
+        doAnswer(invocation -> {
+            loading.await(); // hold the first load until every caller has arrived
+            return stocks;
+        }).when(service).loadStocks();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<List<DashboardStockResponse>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(pool.submit(() -> service.getStocks()));
+        }
+        Thread.sleep(100);
+        loading.countDown();
+        for (Future<List<DashboardStockResponse>> result : results) {
+            assertSame(stocks, result.get());
+        }
+        assertEquals(stocks, service.getStocks()); // still within the TTL
+        pool.shutdown();
+
+        verify(service, times(1)).loadStocks();
+    }
+}
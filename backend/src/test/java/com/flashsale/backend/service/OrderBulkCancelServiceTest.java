@@ -0,0 +1,87 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.entity.Order;
+import com.flashsale.backend.repository.EventRepository;
+import com.flashsale.backend.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBulkCancelServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private RedisStockService redisStockService;
+
+    @Mock
+    private RedisOrderService redisOrderService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private OrderBulkCancelService orderBulkCancelService;
+
+    private final String eventId = UUID.randomUUID().toString();
+    private final String productId = UUID.randomUUID().toString();
+    private final String memberA = UUID.randomUUID().toString();
+    private final String memberB = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    private Order pending(String memberId, int quantity) {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setMemberId(memberId);
+        order.setEventId(eventId);
+        order.setProductId(productId);
+        order.setQuantity(quantity);
+        order.setStatus("PENDING");
+        return order;
+    }
+
+    @Test
+    @DisplayName("批次取消 - 每個 event 一次 MySQL 回補、每個商品一次 Redis 回補，已付款的訂單略過")
+    void cancelExpired_ShouldAggregateStockRestoration() {
+        Order first = pending(memberA, 1);
+        Order second = pending(memberA, 2);
+        Order third = pending(memberB, 1);
+        String paidId = UUID.randomUUID().toString();
+        List<String> claimed = List.of(first.getOrderId(), second.getOrderId(), third.getOrderId(), paidId);
+        when(orderRepository.findPendingByIdsForUpdate(claimed)).thenReturn(List.of(first, second, third));
+
+        List<Order> cancelled = orderBulkCancelService.cancelExpired(claimed);
+
+        assertEquals(3, cancelled.size());
+        verify(orderRepository).markPendingFailed(List.of(first.getOrderId(), second.getOrderId(), third.getOrderId()));
+        verify(eventRepository, times(1)).increaseStock(eventId, 4);
+        verify(redisStockService, times(1)).increaseStock(productId, Map.of(memberA, 3, memberB, 1));
+        verify(redisOrderService, times(1)).deleteOrderCaches(cancelled);
+        verify(redisStockService, never()).increaseStock(anyString(), anyString(), anyInt());
+    }
+}
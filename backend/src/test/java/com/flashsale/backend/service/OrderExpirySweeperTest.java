@@ -0,0 +1,52 @@
+package com.flashsale.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExpirySweeperTest {
+
+    @Mock
+    private OrderExpiryService orderExpiryService;
+
+    @Mock
+    private OrderBulkCancelService orderBulkCancelService;
+
+    private OrderExpirySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new OrderExpirySweeper(orderExpiryService, orderBulkCancelService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(sweeper, "claimBatchSize", 2);
+        ReflectionTestUtils.setField(sweeper, "retryDelayMs", 30_000L);
+    }
+
+    @Test
+    @DisplayName("到期桶認領至清空為止，批次取消失敗時整批重新排程")
+    void sweep_ShouldDrainBucketAndRescheduleFailedBatch() {
+        when(orderExpiryService.dueBuckets(anyLong())).thenReturn(List.of(100L));
+        when(orderExpiryService.claim(eq(100L), anyLong(), eq(2)))
+                .thenReturn(List.of("o1", "o2"))
+                .thenReturn(List.of("o3"));
+        when(orderBulkCancelService.cancelExpired(List.of("o1", "o2"))).thenThrow(new IllegalStateException("lock timeout"));
+        when(orderBulkCancelService.cancelExpired(List.of("o3"))).thenReturn(List.of());
+
+        sweeper.sweep();
+
+        verify(orderExpiryService, times(2)).claim(eq(100L), anyLong(), eq(2));
+        verify(orderExpiryService).reschedule(eq("o1"), anyLong());
+        verify(orderExpiryService).reschedule(eq("o2"), anyLong());
+        verify(orderExpiryService, never()).reschedule(eq("o3"), anyLong());
+    }
+}
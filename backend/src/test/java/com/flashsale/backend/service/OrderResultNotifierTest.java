@@ -0,0 +1,101 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.dto.response.OrderClientDetailResponse;
+import com.flashsale.backend.dto.response.OrderStatusResponse;
+import com.flashsale.backend.entity.Order;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description OrderResultNotifierTest — pub/sub results complete only the matching local waiters
+ * @author Yang-Hsu
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderResultNotifierTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Mock
+    private RedisOrderService redisOrderService;
+
+    @InjectMocks
+    private OrderResultNotifier notifier;
+
+    private final String memberId = UUID.randomUUID().toString();
+    private final String eventId = UUID.randomUUID().toString();
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(OrderResultNotifier.ORDER_RESULT_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Consumer 廣播成功 - 等待中的請求拿到訂單，等待者被移除")
+    void onMessage_Success_CompletesWaiter() {
+        when(redisOrderService.getOrderCache(memberId, eventId)).thenReturn(null);
+        CompletableFuture<OrderStatusResponse> result = notifier.awaitResult(memberId, eventId, 60_000);
+        assertFalse(result.isDone());
+
+        OrderClientDetailResponse order = OrderClientDetailResponse.builder().orderId(UUID.randomUUID().toString()).build();
+        when(redisOrderService.getOrderCache(memberId, eventId)).thenReturn(order);
+        notifier.onMessage(message("SUCCESS:" + memberId + ":" + eventId), null);
+
+        assertEquals("SUCCESS", result.join().getStatus());
+        assertSame(order, result.join().getOrder());
+        assertEquals(0, notifier.waiterCount());
+    }
+
+    @Test
+    @DisplayName("其他買家的結果不影響本請求；逾時回 PENDING")
+    void awaitResult_OtherMember_TimesOutPending() {
+        when(redisOrderService.getOrderCache(memberId, eventId)).thenReturn(null);
+        CompletableFuture<OrderStatusResponse> result = notifier.awaitResult(memberId, eventId, 50);
+
+        notifier.onMessage(message("FAILED:" + UUID.randomUUID() + ":" + eventId), null);
+
+        assertEquals("PENDING", result.join().getStatus());
+        assertEquals(0, notifier.waiterCount());
+    }
+
+    @Test
+    @DisplayName("交易中發布 - commit 之後才廣播結果")
+    void publishAfterCommit_InTransaction_WaitsForCommit() {
+        Order order = new Order();
+        order.setMemberId(memberId);
+        order.setEventId(eventId);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            notifier.publishAfterCommit(order, OrderResultNotifier.SUCCESS);
+            verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(redisTemplate).convertAndSend(eq(OrderResultNotifier.ORDER_RESULT_CHANNEL), eq("SUCCESS:" + memberId + ":" + eventId));
+    }
+}
@@ -1,12 +1,16 @@
 package com.flashsale.backend.service;
 
 import com.flashsale.backend.common.ResultCode;
-import com.flashsale.backend.config.RabbitConfig;
+import com.flashsale.backend.common.metrics.PurchaseMetrics;
+import com.flashsale.backend.common.util.OrderIdGenerator;
 import com.flashsale.backend.dto.request.OrderRequest;
+import com.flashsale.backend.dto.response.EventProductDTO;
+import com.flashsale.backend.dto.response.OrderClientDetailResponse;
 import com.flashsale.backend.entity.Event;
 import com.flashsale.backend.entity.Order;
 import com.flashsale.backend.entity.Product;
 import com.flashsale.backend.exception.BusinessException;
+import com.flashsale.backend.mq.dispatch.OrderDispatcher;
 import com.flashsale.backend.repository.EventRepository;
 import com.flashsale.backend.repository.OrderRepository;
 import org.junit.jupiter.api.DisplayName;
@@ -15,14 +19,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.amqp.AmqpException;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -53,7 +56,25 @@ class OrderServiceTest {
     private RedisOrderService redisOrderService;
 
     @Mock
-    private RabbitTemplate rabbitTemplate;
+    private RedisEventService redisEventService;
+
+    @Mock
+    private SoldOutRegistry soldOutRegistry;
+
+    @Mock
+    private OrderDispatcher orderDispatcher;
+
+    @Mock
+    private OrderIdGenerator orderIdGenerator;
+
+    @Mock
+    private OrderExpiryService orderExpiryService;
+
+    @Mock
+    private OrderResultNotifier orderResultNotifier;
+
+    @Mock
+    private PurchaseMetrics purchaseMetrics;
 
     @InjectMocks
     private OrderService orderService;
@@ -77,11 +98,15 @@ class OrderServiceTest {
 
         Event event = new Event();
         event.setEventId(eventId);
+        event.setProductId(productId);
         event.setProduct(product);
         event.setPrice(new BigDecimal("100"));
 
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
-        when(redisStockService.decreaseStock(productId, quantity)).thenReturn(1L);
+        when(redisStockService.decreaseStock(productId, memberId, quantity)).thenReturn(1L);
+        when(orderDispatcher.dispatch(any(Order.class))).thenReturn(true);
+        String orderId = UUID.randomUUID().toString();
+        when(orderIdGenerator.nextId()).thenReturn(orderId);
 
         Order result = orderService.createOrder(request); // create order action
 
@@ -89,12 +114,146 @@ class OrderServiceTest {
         assertNotNull(result);
         assertEquals("PENDING", result.getStatus());
         assertEquals(memberId, result.getMemberId());
+        assertEquals(orderId, result.getOrderId()); // id is known before the consumer persists the order
 
-        verify(rabbitTemplate, times(1)).convertAndSend(
-                eq(RabbitConfig.ORDER_EXCHANGE),
-                eq(RabbitConfig.ORDER_ROUTING_KEY),
-                any(Order.class)
-        ); //make sure will send to MQ
+        verify(orderDispatcher, times(1)).dispatch(any(Order.class)); //make sure will send to MQ
+    }
+
+    @Test
+    @DisplayName("Redis 直寫建單 - 以 productId 扣減預熱庫存")
+    void createOrderRedis_Should_Deduct_By_ProductId() {
+        String eventId = UUID.randomUUID().toString();
+        String memberId = UUID.randomUUID().toString();
+        String productId = UUID.randomUUID().toString();
+
+        OrderRequest request = new OrderRequest();
+        request.setEventId(eventId);
+        request.setMemberId(memberId);
+        request.setQuantity(1);
+
+        Product product = new Product();
+        product.setProductId(productId);
+
+        Event event = new Event();
+        event.setEventId(eventId);
+        event.setProductId(productId);
+        event.setProduct(product);
+        event.setPrice(new BigDecimal("100"));
+
+        when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
+        when(redisStockService.decreaseStock(productId, memberId, 1)).thenReturn(9L);
+        when(orderIdGenerator.nextId()).thenReturn(UUID.randomUUID().toString());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order result = orderService.createOrderRedis(request);
+
+        assertEquals(productId, result.getProductId());
+        verify(redisStockService, never()).decreaseStock(eq(eventId), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("建立訂單成功 - 命中 Redis 預熱快照時不查 MySQL")
+    void createOrder_SnapshotHit_Should_Skip_MySQL() {
+        String eventId = UUID.randomUUID().toString();
+        String memberId = UUID.randomUUID().toString();
+        String productId = UUID.randomUUID().toString();
+        int quantity = 2;
+
+        OrderRequest request = new OrderRequest();
+        request.setEventId(eventId);
+        request.setMemberId(memberId);
+        request.setQuantity(quantity);
+
+        EventProductDTO snapshot = new EventProductDTO();
+        snapshot.setEventId(eventId);
+        snapshot.setProductId(productId);
+        snapshot.setPrice(new BigDecimal("100"));
+        snapshot.setStartTime(LocalDateTime.now().minusMinutes(5));
+        snapshot.setEndTime(LocalDateTime.now().plusMinutes(5));
+
+        when(redisEventService.getEventSnapshot(eventId)).thenReturn(snapshot);
+        when(redisStockService.decreaseStock(productId, memberId, quantity)).thenReturn(3L);
+        when(orderDispatcher.dispatch(any(Order.class))).thenReturn(true);
+
+        Order result = orderService.createOrder(request);
+
+        assertEquals(productId, result.getProductId());
+        assertEquals(new BigDecimal("200"), result.getTotalPrice());
+        verify(eventRepository, never()).findById(anyString()); // hot path must not touch MySQL
+    }
+
+    @Test
+    @DisplayName("建立訂單失敗 - 超過每人限購時不送 MQ")
+    void createOrder_MemberLimitExceeded() {
+        String eventId = UUID.randomUUID().toString();
+        String memberId = UUID.randomUUID().toString();
+        String productId = UUID.randomUUID().toString();
+
+        OrderRequest request = new OrderRequest();
+        request.setEventId(eventId);
+        request.setMemberId(memberId);
+        request.setQuantity(1);
+
+        EventProductDTO snapshot = new EventProductDTO();
+        snapshot.setEventId(eventId);
+        snapshot.setProductId(productId);
+        snapshot.setPrice(new BigDecimal("100"));
+
+        when(redisEventService.getEventSnapshot(eventId)).thenReturn(snapshot);
+        when(redisStockService.decreaseStock(productId, memberId, 1)).thenReturn(-4L);
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> orderService.createOrder(request));
+
+        assertEquals(ResultCode.ORDER_LIMIT_EXCEEDED, exception.getResultCode());
+        verify(orderDispatcher, never()).dispatch(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("建立訂單失敗 - 活動尚未開始")
+    void createOrder_EventNotStarted() {
+        String eventId = UUID.randomUUID().toString();
+
+        OrderRequest request = new OrderRequest();
+        request.setEventId(eventId);
+        request.setQuantity(1);
+
+        EventProductDTO snapshot = new EventProductDTO();
+        snapshot.setEventId(eventId);
+        snapshot.setProductId(UUID.randomUUID().toString());
+        snapshot.setPrice(new BigDecimal("100"));
+        snapshot.setStartTime(LocalDateTime.now().plusHours(1));
+        snapshot.setEndTime(LocalDateTime.now().plusHours(2));
+
+        when(redisEventService.getEventSnapshot(eventId)).thenReturn(snapshot);
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> orderService.createOrder(request));
+
+        assertEquals(ResultCode.EVENT_NOT_STARTED, exception.getResultCode());
+        verify(redisStockService, never()).decreaseStock(anyString(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("建立訂單失敗 - 本地售完旗標直接拒絕，不呼叫 Redis 扣庫存")
+    void createOrder_LocalSoldOutFlag_Should_Skip_Redis() {
+        String eventId = UUID.randomUUID().toString();
+        String productId = UUID.randomUUID().toString();
+
+        OrderRequest request = new OrderRequest();
+        request.setEventId(eventId);
+        request.setQuantity(1);
+
+        EventProductDTO snapshot = new EventProductDTO();
+        snapshot.setEventId(eventId);
+        snapshot.setProductId(productId);
+        snapshot.setPrice(new BigDecimal("100"));
+
+        when(redisEventService.getEventSnapshot(eventId)).thenReturn(snapshot);
+        when(soldOutRegistry.isSoldOut(productId)).thenReturn(true);
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> orderService.createOrder(request));
+
+        assertEquals(ResultCode.STOCK_SOLD_OUT, exception.getResultCode());
+        verify(redisStockService, never()).decreaseStock(anyString(), any(), anyInt());
     }
 
     @Test
@@ -112,21 +271,22 @@ class OrderServiceTest {
         product.setProductId(productId);
         Event event = new Event();
         event.setEventId(eventId);
+        event.setProductId(productId);
         event.setProduct(product);
 
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
-        when(redisStockService.decreaseStock(productId, quantity)).thenReturn(-1L);
+        when(redisStockService.decreaseStock(productId, null, quantity)).thenReturn(-1L);
 
         BusinessException exception = assertThrows(BusinessException.class, () -> {
             orderService.createOrder(request);
         });
 
         assertEquals(ResultCode.STOCK_INVALID, exception.getResultCode()); //will return error code
-        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+        verify(orderDispatcher, never()).dispatch(any(Order.class));
     }
 
     @Test
-    @DisplayName("建立訂單失敗 - MQ 發送異常時應回補 Redis 庫存")
+    @DisplayName("建立訂單失敗 - MQ 發送緩衝已滿時應回補 Redis 庫存")
     void createOrder_MqFailure_Should_Restore_Redis_Stock() {
         String eventId = UUID.randomUUID().toString();
         String memberId = UUID.randomUUID().toString();
@@ -143,22 +303,23 @@ class OrderServiceTest {
         
         Event event = new Event();
         event.setEventId(eventId);
+        event.setProductId(productId);
         event.setProduct(product);
         event.setPrice(new BigDecimal("100"));
 
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(event));
-        when(redisStockService.decreaseStock(productId, quantity)).thenReturn(1L);
+        when(redisStockService.decreaseStock(productId, memberId, quantity)).thenReturn(1L);
         
-        // Simulate MQ failure
-        doThrow(new AmqpException("MQ connection failed")).when(rabbitTemplate)
-                .convertAndSend(eq(RabbitConfig.ORDER_EXCHANGE), eq(RabbitConfig.ORDER_ROUTING_KEY), any(Order.class));
+        // Simulate publish buffer full
+        when(orderDispatcher.dispatch(any(Order.class))).thenReturn(false);
 
         BusinessException exception = assertThrows(BusinessException.class, () -> {
             orderService.createOrder(request);
         });
         assertEquals(ResultCode.SYSTEM_ERROR, exception.getResultCode());
 
-        verify(redisStockService, times(1)).increaseStock(productId, quantity);
+        verify(redisStockService, times(1)).increaseStock(productId, memberId, quantity);
+        verify(orderResultNotifier, times(1)).publish(any(Order.class), eq(OrderResultNotifier.FAILED));
     }
 
     @Test
@@ -187,9 +348,10 @@ class OrderServiceTest {
     void getOrderStatusFromRedis_Success() {
         String memberId = UUID.randomUUID().toString();
         String eventId = UUID.randomUUID().toString();
-        Order order = new Order();
-        order.setOrderId(UUID.randomUUID().toString());
-        order.setMemberId(memberId);
+        OrderClientDetailResponse order = OrderClientDetailResponse.builder()
+                .orderId(UUID.randomUUID().toString())
+                .status("PENDING")
+                .build();
 
         when(redisOrderService.getOrderCache(memberId, eventId)).thenReturn(order);
 
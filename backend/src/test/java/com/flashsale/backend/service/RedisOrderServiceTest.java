@@ -0,0 +1,48 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.dto.response.OrderClientDetailResponse;
+import com.flashsale.backend.entity.Order;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @description RedisOrderServiceTest — fixed-field encoding of the db1 order-status cache
+ * @author Yang-Hsu
+ */
+class RedisOrderServiceTest {
+
+    @Test
+    @DisplayName("訂單狀態編碼 - 31 bytes 來回還原 orderId / status / quantity / totalPrice")
+    void encode_Decode_RoundTrip() {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setMemberId(UUID.randomUUID().toString());
+        order.setEventId(UUID.randomUUID().toString());
+        order.setStatus("PENDING");
+        order.setQuantity(3);
+        order.setTotalPrice(new BigDecimal("2997.50"));
+
+        byte[] encoded = RedisOrderService.encode(order);
+        OrderClientDetailResponse decoded = RedisOrderService.decode(encoded);
+
+        assertEquals(RedisOrderService.V1_LENGTH, encoded.length);
+        assertEquals(order.getOrderId(), decoded.getOrderId());
+        assertEquals("PENDING", decoded.getStatus());
+        assertEquals(3, decoded.getQuantity());
+        assertEquals(new BigDecimal("2997.50"), decoded.getTotalPrice());
+    }
+
+    @Test
+    @DisplayName("未知版本 - 視為快取未命中")
+    void decode_UnknownVersion_ReturnsNull() {
+        byte[] encoded = new byte[RedisOrderService.V1_LENGTH];
+        encoded[0] = 9;
+
+        assertNull(RedisOrderService.decode(encoded));
+    }
+}
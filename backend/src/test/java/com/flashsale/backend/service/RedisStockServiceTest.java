@@ -0,0 +1,162 @@
+package com.flashsale.backend.service;
+
+import com.flashsale.backend.common.metrics.PurchaseMetrics;
+import com.flashsale.backend.redis.LuaScript;
+import com.flashsale.backend.redis.RedisScriptRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @description RedisStockServiceTest — segmented fallover and lease mode (Redis mocked)
+ * @author Yang-Hsu
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisStockServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private SoldOutRegistry soldOutRegistry;
+
+    @Mock
+    private RedisScriptRegistry scriptRegistry;
+
+    @Mock
+    private PurchaseMetrics purchaseMetrics;
+
+    @InjectMocks
+    private RedisStockService redisStockService;
+
+    private final String productId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.multiGet(RedisStockService.buildKey(productId),
+                List.of(RedisStockService.SEGMENTS_FIELD, RedisStockService.MAX_PER_MEMBER_FIELD)))
+                .thenReturn(Arrays.asList("3", "2"));
+    }
+
+    private void givenSegmentResult(int index, long result) {
+        lenient().when(scriptRegistry.<Long>execute(any(LuaScript.class),
+                eq(segmentKeys(index)), any(Object[].class)))
+                .thenReturn(result);
+    }
+
+    private List<String> segmentKeys(int index) {
+        String segmentKey = RedisStockService.buildSegmentKey(productId, index);
+        // Buyer record and notify throttle share the segment's cluster slot
+        return List.of(segmentKey, RedisStockService.buildSegmentBuyersKey(productId, index), "{" + segmentKey + "}:notify");
+    }
+
+    @Test
+    @DisplayName("分段扣庫存 - 起始 segment 售完時改扣其他 segment")
+    void decreaseStock_Segmented_FallsOverToSibling() {
+        givenSegmentResult(0, -3L);
+        givenSegmentResult(1, -3L);
+        givenSegmentResult(2, 4L);
+
+        long result = redisStockService.decreaseStock(productId, 1);
+
+        assertEquals(4L, result);
+        verify(soldOutRegistry, never()).markSoldOut(productId);
+    }
+
+    @Test
+    @DisplayName("分段扣庫存 - 所有 segment 售完才視為售完")
+    void decreaseStock_Segmented_AllDrained_ShouldMarkSoldOut() {
+        givenSegmentResult(0, -3L);
+        givenSegmentResult(1, -3L);
+        givenSegmentResult(2, -3L);
+
+        long result = redisStockService.decreaseStock(productId, 1);
+
+        assertEquals(-3L, result);
+        verify(soldOutRegistry, times(1)).markSoldOut(productId);
+    }
+
+    @Test
+    @DisplayName("分段扣庫存 - 某 segment 數量不足時回傳 -2 而非售完")
+    void decreaseStock_Segmented_Insufficient() {
+        givenSegmentResult(0, -2L);
+        givenSegmentResult(1, -3L);
+        givenSegmentResult(2, -3L);
+
+        long result = redisStockService.decreaseStock(productId, 2);
+
+        assertEquals(-2L, result);
+        verify(soldOutRegistry, never()).markSoldOut(productId);
+    }
+
+    @Test
+    @DisplayName("分段扣庫存 - 超過每人限購 (-4) 時不再嘗試其他 segment")
+    void decreaseStock_Segmented_MemberLimitStopsFallover() {
+        String memberId = UUID.randomUUID().toString();
+        int start = Math.floorMod(memberId.hashCode(), 3);
+        givenSegmentResult(start, -4L);
+
+        long result = redisStockService.decreaseStock(productId, memberId, 1);
+
+        assertEquals(-4L, result);
+        verify(scriptRegistry, times(1)).execute(eq(LuaScript.DECREASE_STOCK), anyList(),
+                eq(1), eq(memberId), eq(2), anyLong(), anyLong());
+        verify(soldOutRegistry, never()).markSoldOut(productId);
+    }
+
+    @Test
+    @DisplayName("分段扣庫存 - 有限購的會員只扣自己的 segment，該段賣完但商品仍有庫存時回 -2 且不標記售完")
+    void decreaseStock_Segmented_LimitedMemberPinnedToHomeSegment() {
+        String memberId = UUID.randomUUID().toString();
+        int home = Math.floorMod(memberId.hashCode(), 3);
+        givenSegmentResult(home, -3L);
+        when(hashOperations.multiGet(RedisStockService.buildKey(productId),
+                List.of(RedisStockService.STOCK_FIELD, RedisStockService.SEGMENTS_FIELD))).thenReturn(Arrays.asList(null, "3"));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Arrays.asList("0", "0", "5"));
+
+        long result = redisStockService.decreaseStock(productId, memberId, 1);
+
+        assertEquals(-2L, result);
+        verify(scriptRegistry, times(1)).execute(eq(LuaScript.DECREASE_STOCK), anyList(), any(Object[].class));
+        verify(soldOutRegistry, never()).markSoldOut(productId);
+    }
+
+    @Test
+    @DisplayName("Lease 模式 - 一次向 Redis 租 50 單位，之後在 JVM 內扣減")
+    void decreaseStock_LeaseMode_ServesFromLocalLease() {
+        ReflectionTestUtils.setField(redisStockService, "leaseEnabled", true);
+        ReflectionTestUtils.setField(redisStockService, "leaseBlockSize", 50);
+        for (int i = 0; i < 3; i++) {
+            givenSegmentResult(i, 50L);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(49 - i, redisStockService.decreaseStock(productId, 1));
+        }
+
+        verify(scriptRegistry, times(1)).execute(eq(LuaScript.LEASE_STOCK), anyList(), any(Object[].class)); // only the lease call
+    }
+}
@@ -0,0 +1,55 @@
+package com.flashsale.backend.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @description SoldOutRegistryTest — sold-out flags expire so restored stock is never blocked for good
+ * @author Yang-Hsu
+ */
+@ExtendWith(MockitoExtension.class)
+class SoldOutRegistryTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    @InjectMocks
+    private SoldOutRegistry soldOutRegistry;
+
+    private final String productId = UUID.randomUUID().toString();
+
+    @Test
+    @DisplayName("售完旗標過期 - 下一個請求回到 Redis 重新檢查，並可再次廣播")
+    void isSoldOut_ExpiredFlag_ReturnsFalse() throws InterruptedException {
+        ReflectionTestUtils.setField(soldOutRegistry, "ttlMs", 500L);
+
+        soldOutRegistry.markSoldOut(productId);
+        soldOutRegistry.markSoldOut(productId); // still flagged: no second broadcast
+        assertTrue(soldOutRegistry.isSoldOut(productId));
+
+        Thread.sleep(600);
+        assertFalse(soldOutRegistry.isSoldOut(productId));
+
+        soldOutRegistry.markSoldOut(productId);
+        verify(redisTemplate, times(2)).convertAndSend(eq(SoldOutRegistry.SOLD_OUT_CHANNEL), anyString());
+    }
+}
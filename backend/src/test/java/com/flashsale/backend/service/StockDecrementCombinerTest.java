@@ -0,0 +1,73 @@
+package com.flashsale.backend.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @description StockDecrementCombinerTest — concurrent decrements of one product share one batch call
+ * @author Yang-Hsu
+ */
+class StockDecrementCombinerTest {
+
+    private final String productId = UUID.randomUUID().toString();
+
+    @Test
+    @DisplayName("同商品併發扣庫存 - 湊滿 maxBatch 後只呼叫一次 Redis，依到達順序分配")
+    void decrement_ConcurrentRequests_ShareOneBatch() throws Exception {
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        // Window far longer than the test: the batch can only close by reaching maxBatch
+        StockDecrementCombiner combiner = new StockDecrementCombiner(5_000_000L, threads, (id, requests) -> {
+            calls.incrementAndGet();
+            List<Long> results = new ArrayList<>();
+            long stock = 5;
+            for (StockDecrementCombiner.Request request : requests) {
+                results.add(stock > 0 ? --stock : -3L);
+            }
+            return results;
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return combiner.decrement(productId, null, 1);
+            }));
+        }
+        start.countDown();
+        List<Long> results = new ArrayList<>();
+        for (Future<Long> future : futures) {
+            results.add(future.get());
+        }
+        pool.shutdown();
+
+        assertEquals(1, calls.get());
+        assertEquals(5, results.stream().filter(r -> r >= 0).count());
+        assertEquals(3, results.stream().filter(r -> r == -3).count());
+        assertTrue(results.containsAll(List.of(0L, 1L, 2L, 3L, 4L)));
+    }
+
+    @Test
+    @DisplayName("批次執行失敗 - 每個請求都收到 -1")
+    void decrement_ExecutorFails_ReturnsMinusOne() {
+        StockDecrementCombiner combiner = new StockDecrementCombiner(10L, 64, (id, requests) -> {
+            throw new IllegalStateException("redis down");
+        });
+
+        assertEquals(-1L, combiner.decrement(productId, null, 1));
+    }
+}
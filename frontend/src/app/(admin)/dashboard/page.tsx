@@ -9,6 +9,8 @@ export default function DashboardPage() {
     const [stocks, setStocks] = useState<DashboardStockResponse[]>([]);
     const [loading, setLoading] = useState(true);
     const [refreshing, setRefreshing] = useState(false);
+    const [connected, setConnected] = useState(false);
+    const [delay, setDelay] = useState<number | null>(null);
 
     const loadStocks = useCallback(async (isRefresh = false) => {
         if (isRefresh) setRefreshing(true);
@@ -24,8 +26,25 @@ export default function DashboardPage() {
     }, []);
 
     useEffect(() => {
-        loadStocks();
-    }, [loadStocks]);
+        // 即時串流：snapshot 取代整份清單，stock 事件只合併有變動的商品
+        return DashboardService.streamStocks({
+            onSnapshot: (data, sentAt) => {
+                setStocks(data);
+                setLoading(false);
+                setDelay(Date.now() - sentAt);
+            },
+            onChange: (changed, sentAt) => {
+                setStocks((prev) => {
+                    const byId = new Map(changed.map((item) => [item.productId, item]));
+                    const merged = prev.map((item) => byId.get(item.productId) ?? item);
+                    const known = new Set(prev.map((item) => item.productId));
+                    return [...merged, ...changed.filter((item) => !known.has(item.productId))];
+                });
+                setDelay(Date.now() - sentAt);
+            },
+            onStatus: setConnected,
+        });
+    }, []);
 
     return (
         <div className="space-y-10">
@@ -43,10 +62,17 @@ export default function DashboardPage() {
                     >
                         {refreshing ? '更新中...' : '↻ 重新整理'}
                     </button>
-                    <div className="flex items-center gap-2 px-3 py-1 bg-emerald-50 rounded-full border border-emerald-100">
-                        <span className="w-1.5 h-1.5 bg-emerald-500 rounded-full animate-pulse"></span>
-                        <span className="text-[10px] font-black text-emerald-700 font-mono tracking-tight uppercase">Connected</span>
-                    </div>
+                    {connected ? (
+                        <div className="flex items-center gap-2 px-3 py-1 bg-emerald-50 rounded-full border border-emerald-100">
+                            <span className="w-1.5 h-1.5 bg-emerald-500 rounded-full animate-pulse"></span>
+                            <span className="text-[10px] font-black text-emerald-700 font-mono tracking-tight uppercase">Live</span>
+                        </div>
+                    ) : (
+                        <div className="flex items-center gap-2 px-3 py-1 bg-amber-50 rounded-full border border-amber-100">
+                            <span className="w-1.5 h-1.5 bg-amber-400 rounded-full"></span>
+                            <span className="text-[10px] font-black text-amber-700 font-mono tracking-tight uppercase">Reconnecting</span>
+                        </div>
+                    )}
                 </div>
             </div>
 
@@ -142,11 +168,11 @@ export default function DashboardPage() {
                     {/* Redis Delay 卡片 */}
                     <div className="bg-white border border-gray-100 p-8 rounded-[2rem] shadow-sm flex items-center justify-between group hover:border-blue-400 transition-all cursor-default relative overflow-hidden">
                         <div className="relative z-10">
-                            <span className="text-[10px] font-black text-gray-400 uppercase tracking-widest block mb-1">Response Delay</span>
-                            <span className="text-xs font-bold text-gray-800">Redis API</span>
+                            <span className="text-[10px] font-black text-gray-400 uppercase tracking-widest block mb-1">Push Delay</span>
+                            <span className="text-xs font-bold text-gray-800">Stock Stream</span>
                         </div>
                         <div className="relative z-10 scale-110">
-                            <RedisDelay />
+                            <RedisDelay delay={delay} />
                         </div>
                     </div>
                 </div>
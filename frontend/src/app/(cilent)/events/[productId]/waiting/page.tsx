@@ -3,9 +3,9 @@
 import { useEffect, useRef, useState } from 'react';
 import { useParams, useRouter, useSearchParams } from 'next/navigation';
 import { OrderClientService } from '@/services/orderClientService';
+import { OrderStatusResponse } from '@/types/order';
 
-const POLL_INTERVAL_MS = 2000;
-const POLL_TIMEOUT_MS = 30000;
+const WAIT_TIMEOUT_MS = 30000;
 
 export default function WaitingPage() {
   const params = useParams();
@@ -15,33 +15,55 @@ export default function WaitingPage() {
   const eventId = searchParams.get('eventId') ?? '';
 
   const [timedOut, setTimedOut] = useState(false);
-  const intervalRef = useRef<ReturnType<typeof setInterval> | null>(null);
-  const timeoutRef = useRef<ReturnType<typeof setTimeout> | null>(null);
+  const [failed, setFailed] = useState(false);
+  const closeStreamRef = useRef<(() => void) | null>(null);
 
   useEffect(() => {
     if (!eventId) return;
+    let cancelled = false;
+    const deadline = Date.now() + WAIT_TIMEOUT_MS;
 
-    // Start polling
-    intervalRef.current = setInterval(async () => {
-      try {
-        const res = await OrderClientService.pollStatus(eventId);
-        if (res.status === 'SUCCESS' && res.order) {
-          clearInterval(intervalRef.current!);
-          clearTimeout(timeoutRef.current!);
-          router.push(`/events/${productId}/payment?orderId=${res.order.orderId}`);
+    const handleResult = (res: OrderStatusResponse) => {
+      if (cancelled) return;
+      if (res.status === 'SUCCESS' && res.order) {
+        router.push(`/events/${productId}/payment?orderId=${res.order.orderId}`);
+      } else if (res.status === 'FAILED') {
+        setFailed(true);
+      } else {
+        setTimedOut(true);
+      }
+    };
+
+    // SSE 不可用 (proxy 中斷 / 瀏覽器不支援) 時改用 long-poll，直到結果出現或超過總等待時間
+    const longPoll = async () => {
+      while (!cancelled && Date.now() < deadline) {
+        try {
+          const res = await OrderClientService.waitStatus(eventId, Math.min(25000, deadline - Date.now()));
+          if (res.status !== 'PENDING') {
+            handleResult(res);
+            return;
+          }
+        } catch {
+          // error handled by http.ts toast
+          return;
         }
-      } catch {
-        // error handled by http.ts toast
       }
-    }, POLL_INTERVAL_MS);
+      if (!cancelled) setTimedOut(true);
+    };
 
-    // Timeout guard
-    timeoutRef.current = setTimeout(() => {
-      clearInterval(intervalRef.current!);
-      setTimedOut(true);
-    }, POLL_TIMEOUT_MS);
+    if (typeof EventSource === 'undefined') {
+      longPoll();
+    } else {
+      closeStreamRef.current = OrderClientService.streamStatus(eventId, handleResult, longPoll);
+    }
 
     return () => {
+      cancelled = true;
+      closeStreamRef.current?.();
+    };
+  }, [eventId, productId, router]);
+
+  return () => {
       clearInterval(intervalRef.current!);
       clearTimeout(timeoutRef.current!);
     };
@@ -49,13 +71,24 @@ export default function WaitingPage() {
 
   return (
     <div className="flex flex-col items-center justify-center min-h-[60vh] gap-6 px-4">
-      {!timedOut ? (
+      {failed ? (
+        <div className="text-center space-y-4">
+          <p className="text-gray-700 font-semibold">訂單建立失敗</p>
+          <p className="text-gray-400 text-sm">庫存已退回，請返回活動頁重新搶購</p>
+          <button
+            onClick={() => router.push(`/events/${productId}`)}
+            className="px-6 py-2 rounded-xl bg-blue-600 hover:bg-blue-700 text-white font-semibold text-sm transition-all"
+          >
+            返回活動頁
+          </button>
+        </div>
+      ) : !timedOut ? (
         <>
           <div className="w-12 h-12 border-4 border-blue-600 border-t-transparent rounded-full animate-spin" />
           <div className="text-center space-y-1">
             <p className="text-gray-800 font-semibold text-lg">搶購成功！</p>
             <p className="text-gray-400 text-sm">訂單處理中，請稍候...</p>
-            <p className="text-gray-300 text-xs">每 2 秒自動確認一次</p>
+            <p className="text-gray-300 text-xs">完成後將自動跳轉</p>
           </div>
         </>
       ) : (
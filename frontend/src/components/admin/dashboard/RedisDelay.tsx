@@ -1,29 +1,12 @@
 'use client';
-import { useState, useEffect } from 'react';
-import { DashboardService } from '@/services/dashboardService';
-
-export default function RedisDelay() {
-  const [delay, setDelay] = useState<number | null>(null);
-
-  const measure = async () => {
-    const t1 = Date.now();
-    try {
-      await DashboardService.getStocks();
-      setDelay(Date.now() - t1);
-    } catch {
-      // 若後端未啟動則不更新
-    }
-  };
-
-  useEffect(() => {
-    measure();
-    const timer = setInterval(measure, 10000);
-    return () => clearInterval(timer);
-  }, []);
 
+/**
+ * 最近一次庫存推送的延遲 (伺服器送出 → 瀏覽器收到)，由 dashboard 的 SSE 連線提供
+ */
+export default function RedisDelay({ delay }: { delay: number | null }) {
   return (
     <span className="text-sm font-mono font-bold tabular-nums">
-      {delay === null ? '…' : `${delay}ms`}
+      {delay === null ? '…' : `${Math.max(0, delay)}ms`}
     </span>
   );
-}
\ No newline at end of file
+}
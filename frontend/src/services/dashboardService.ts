@@ -1,7 +1,35 @@
 import http from '@/lib/http';
 import { DashboardStockResponse } from '@/types/dashboard';
 
+interface StreamEnvelope {
+  data: DashboardStockResponse[];
+  timestamp: number; // server send time (ms)
+}
+
 export const DashboardService = {
   getStocks: (): Promise<DashboardStockResponse[]> =>
     http.get('/admin/dashboard/stocks'),
+
+  /**
+   * 即時庫存 (SSE)：先收到一次 snapshot，之後只推送 Redis / DB 庫存有變動的商品
+   * 回傳值用於關閉連線
+   */
+  streamStocks: (handlers: {
+    onSnapshot: (stocks: DashboardStockResponse[], sentAt: number) => void;
+    onChange: (changed: DashboardStockResponse[], sentAt: number) => void;
+    onStatus: (connected: boolean) => void;
+  }): (() => void) => {
+    const source = new EventSource('/api/admin/dashboard/stocks/stream', { withCredentials: true });
+    source.onopen = () => handlers.onStatus(true);
+    source.onerror = () => handlers.onStatus(false); // EventSource reconnects by itself and gets a fresh snapshot
+    source.addEventListener('snapshot', (e) => {
+      const body = JSON.parse((e as MessageEvent).data) as StreamEnvelope;
+      handlers.onSnapshot(body.data, body.timestamp);
+    });
+    source.addEventListener('stock', (e) => {
+      const body = JSON.parse((e as MessageEvent).data) as StreamEnvelope;
+      handlers.onChange(body.data, body.timestamp);
+    });
+    return () => source.close();
+  },
 };
@@ -40,6 +40,36 @@ export const OrderClientService = {
   pollStatus: (eventId: string): Promise<OrderStatusResponse> =>
     http.get(`${BASE_PATH}/status?eventId=${eventId}`),
 
+  /**
+   * 伺服器推送訂單結果 (SSE)：收到一次 order-status 事件後關閉；連線失敗時呼叫 onError 改用 long-poll
+   * 回傳值用於取消訂閱
+   */
+  streamStatus: (
+    eventId: string,
+    onResult: (res: OrderStatusResponse) => void,
+    onError: () => void,
+  ): (() => void) => {
+    const source = new EventSource(`/api${BASE_PATH}/status/stream?eventId=${eventId}`, { withCredentials: true });
+    let done = false;
+    source.addEventListener('order-status', (e) => {
+      done = true;
+      source.close();
+      const body = JSON.parse((e as MessageEvent).data) as { data: OrderStatusResponse };
+      onResult(body.data);
+    });
+    source.onerror = () => {
+      source.close();
+      if (!done) onError();
+    };
+    return () => source.close();
+  },
+
+  /**
+   * Long-poll 備援：伺服器在結果產生時立即回應，最長等待 timeoutMs 後回 PENDING
+   */
+  waitStatus: (eventId: string, timeoutMs = 25000): Promise<OrderStatusResponse> =>
+    http.get(`${BASE_PATH}/status/wait?eventId=${eventId}&timeoutMs=${timeoutMs}`, { timeout: timeoutMs + 5000 }),
+
   /**
    * 模擬付款
    */
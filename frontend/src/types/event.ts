@@ -5,6 +5,9 @@ export interface EventResponse {
   startTime: string;
   endTime: string;
   status: number;
+  stockSegments?: number | null;
+  maxPerMember?: number | null;
+  paymentWindowMinutes?: number | null;
   createdAt: string;
   updatedAt: string;
 }
@@ -32,6 +35,9 @@ export interface EventRequest {
   startTime: string;
   endTime: string;
   status: number;
+  stockSegments?: number | null; // Redis stock sub-counters at preheat, omit for a single key
+  maxPerMember?: number | null; // Per-member purchase limit, omit for the server default
+  paymentWindowMinutes?: number | null; // Minutes to pay before the order expires, omit for the server default
 }
 
 // Client-facing preheated product from Redis
@@ -49,6 +49,6 @@ export interface OrderClientPageResponse {
 }
 
 export interface OrderStatusResponse {
-  status: 'SUCCESS' | 'PENDING';
+  status: 'SUCCESS' | 'PENDING' | 'FAILED';
   order?: OrderClientDetailResponse;
 }
\ No newline at end of file
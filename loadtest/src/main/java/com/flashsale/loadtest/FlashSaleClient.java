@@ -0,0 +1,221 @@
+package com.flashsale.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * @description Thin HTTP client over the backend REST API: seeding (admin / register / login), the three order paths
+ * and the read-backs used by the oversell check. Admin endpoints are open in the current SecurityConfig.
+ * @author Yang-Hsu
+ */
+public class FlashSaleClient {
+
+    private static final int SUCCESS_CODE = 200;
+    private static final String ACCESS_COOKIE = "access_token=";
+
+    private final String baseUrl;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public record Member(String memberId, String email, String accessCookie) {
+
+        Member withAccessCookie(String cookie) {
+            return new Member(memberId, email, cookie);
+        }
+    }
+
+    public record Outcome(boolean success, String label) {
+    }
+
+    public FlashSaleClient(String baseUrl, Duration requestTimeout) {
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // Tomcat without TLS: no h2 upgrade
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    // === Seeding ===
+
+    public Member registerMember(String email, String password, String name) {
+        JsonNode data = call("POST", "/api/client/open/register", Map.of("memberEmail", email, "memberPwd", password, "memberName", name), null);
+        return new Member(data.path("memberId").asText(), email, null);
+    }
+
+    /**
+     * @return the access_token cookie ("access_token=...") for authenticated order requests
+     */
+    public String login(String email, String password) {
+        HttpResponse<byte[]> response = send(request("POST", "/api/client/auth/login", Map.of("email", email, "password", password), null));
+        data(response, "POST /api/client/auth/login");
+        return response.headers().allValues("set-cookie").stream()
+                .filter(cookie -> cookie.startsWith(ACCESS_COOKIE))
+                .map(cookie -> cookie.substring(0, cookie.indexOf(';') > 0 ? cookie.indexOf(';') : cookie.length()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Login of " + email + " returned no access_token cookie"));
+    }
+
+    public String createProduct(String productName) {
+        Map<String, Object> body = Map.of("productName", productName, "description", "load test product", "status", 1);
+        return call("POST", "/api/admin/products", body, null).path("productId").asText();
+    }
+
+    /**
+     * Active event around "now" (±12h so backend and load generator time zones don't matter), long payment window
+     * so no order expires during the run
+     */
+    public String createEvent(String productId, int stock, int maxPerMember) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("productId", productId);
+        body.put("price", BigDecimal.ONE);
+        body.put("stock", stock);
+        body.put("startTime", now.minusHours(12));
+        body.put("endTime", now.plusHours(12));
+        body.put("status", 1);
+        body.put("paymentWindowMinutes", 1440);
+        if (maxPerMember > 0) {
+            body.put("maxPerMember", maxPerMember);
+        }
+        return call("POST", "/api/admin/events", body, null).path("eventId").asText();
+    }
+
+    /**
+     * Preheats today's active events into Redis (stock hash, segments, eventId index)
+     */
+    public void preloadToday() {
+        call("POST", "/api/admin/jobs/preload-today", null, null);
+    }
+
+    // === Order paths ===
+
+    public HttpRequest orderRequest(OrderPath path, Member member, String eventId, int quantity) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (!path.authenticated()) {
+            body.put("memberId", member.memberId());
+        }
+        body.put("eventId", eventId);
+        body.put("quantity", quantity);
+        return request("POST", path.endpoint(), body, path.authenticated() ? member.accessCookie() : null);
+    }
+
+    public HttpResponse<byte[]> sendRaw(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Order response as success flag + label: ApiResponse message ("success", "stock_sold_out", ...) or the HTTP status
+     */
+    public Outcome outcomeOf(HttpResponse<byte[]> response) {
+        try {
+            JsonNode body = objectMapper.readTree(response.body());
+            if (body != null && body.hasNonNull("message")) {
+                boolean success = response.statusCode() == 200 && body.path("code").asInt() == SUCCESS_CODE;
+                return new Outcome(success, body.path("message").asText());
+            }
+        } catch (IOException e) {
+            // not an ApiResponse (proxy error page, empty body)
+        }
+        return new Outcome(false, "http_" + response.statusCode());
+    }
+
+    // === Read-backs for the oversell check ===
+
+    public int eventStock(String eventId) {
+        return call("GET", "/api/admin/events/" + eventId, null, null).path("stock").asInt();
+    }
+
+    /**
+     * Aggregated Redis stock (segments summed by the backend), null when the product is not preheated
+     */
+    public Integer redisStock(String productId) {
+        JsonNode data = call("GET", "/api/client/open/redis/product/" + productId, null, null, true);
+        return data == null || !data.hasNonNull("stock") ? null : Integer.valueOf(data.path("stock").asText());
+    }
+
+    /**
+     * Orders of the (uniquely named) load test product, every status
+     */
+    public long countOrders(String productName) {
+        String query = "?size=1&productName=" + URLEncoder.encode(productName, StandardCharsets.UTF_8);
+        return call("GET", "/api/admin/orders" + query, null, null).path("page").path("totalElements").asLong();
+    }
+
+    // === Plumbing ===
+
+    private JsonNode call(String method, String path, Object body, String cookie) {
+        return call(method, path, body, cookie, false);
+    }
+
+    private JsonNode call(String method, String path, Object body, String cookie, boolean nullOnBusinessError) {
+        HttpResponse<byte[]> response = send(request(method, path, body, cookie));
+        if (nullOnBusinessError && response.statusCode() == 200 && !outcomeOf(response).success()) {
+            return null;
+        }
+        return data(response, method + " " + path);
+    }
+
+    private JsonNode data(HttpResponse<byte[]> response, String what) {
+        try {
+            JsonNode json = objectMapper.readTree(response.body());
+            if (response.statusCode() != 200 || json == null || json.path("code").asInt() != SUCCESS_CODE) {
+                throw new IllegalStateException(what + " failed: HTTP " + response.statusCode() + " "
+                        + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            return json.path("data");
+        } catch (IOException e) {
+            throw new UncheckedIOException(what + " returned a non-JSON body", e);
+        }
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) {
+        try {
+            return sendRaw(request);
+        } catch (IOException e) {
+            throw new UncheckedIOException(request.method() + " " + request.uri() + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+
+    private HttpRequest request(String method, String path, Object body, String cookie) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(requestTimeout);
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        try {
+            return builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
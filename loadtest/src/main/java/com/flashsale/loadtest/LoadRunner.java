@@ -0,0 +1,164 @@
+package com.flashsale.loadtest;
+
+import com.flashsale.loadtest.FlashSaleClient.Member;
+import com.flashsale.loadtest.PathReport.Sample;
+import com.flashsale.loadtest.PathReport.StockCheck;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @description Fires one spike profile at one order path and checks the stock afterwards.
+ * 每個請求一條 virtual thread；BURST 為 closed loop (users 條迴圈同時起跑)，
+ * RAMP / SUSTAINED 依排程時間送出 (open model)，並行數已滿時該請求記為 dropped，不延後送出 (避免 coordinated omission)。
+ * @author Yang-Hsu
+ */
+public class LoadRunner {
+
+    private static final long DRAIN_POLL_MS = 500;
+
+    private final FlashSaleClient client;
+    private final LoadTestConfig config;
+
+    public LoadRunner(FlashSaleClient client, LoadTestConfig config) {
+        this.client = client;
+        this.config = config;
+    }
+
+    public PathReport run(OrderPath path, String productId, String productName, String eventId, List<Member> members)
+            throws InterruptedException {
+        Queue<Sample> samples = new ConcurrentLinkedQueue<>();
+        long start = System.nanoTime();
+        long dropped = config.profile().closedLoop()
+                ? runClosedLoop(path, eventId, members, samples)
+                : runOpenLoop(path, eventId, members, samples);
+        long elapsedNanos = System.nanoTime() - start;
+        List<Sample> results = new ArrayList<>(samples);
+        long successes = results.stream().filter(Sample::success).count();
+        StockCheck check = checkStock(path, productId, productName, eventId, successes);
+        return PathReport.of(path, eventId, results, dropped, elapsedNanos, check);
+    }
+
+    /**
+     * Every user starts at the same instant and re-orders as soon as the previous response arrives
+     */
+    private long runClosedLoop(OrderPath path, String eventId, List<Member> members, Queue<Sample> samples)
+            throws InterruptedException {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long[] deadline = new long[1];
+            for (Member member : members) {
+                executor.submit(() -> {
+                    startSignal.await();
+                    HttpRequest request = client.orderRequest(path, member, eventId, config.quantity());
+                    while (System.nanoTime() < deadline[0] && !Thread.currentThread().isInterrupted()) {
+                        samples.add(send(request));
+                    }
+                    return null;
+                });
+            }
+            deadline[0] = System.nanoTime() + config.duration().toNanos();
+            startSignal.countDown(); // happens-before: the users see the deadline
+        }
+        return 0;
+    }
+
+    /**
+     * Requests leave at their scheduled offsets; at most `users` are in flight, the rest are counted as dropped
+     */
+    private long runOpenLoop(OrderPath path, String eventId, List<Member> members, Queue<Sample> samples) {
+        SpikeProfile profile = config.profile();
+        long total = profile.totalRequests(config.rps(), config.duration());
+        Semaphore inFlight = new Semaphore(members.size());
+        long dropped = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            for (long k = 0; k < total; k++) {
+                long sendAt = start + profile.sendOffsetNanos(k, config.rps(), config.duration());
+                long wait;
+                while ((wait = sendAt - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (!inFlight.tryAcquire()) {
+                    dropped++;
+                    continue;
+                }
+                Member member = members.get((int) (k % members.size()));
+                executor.submit(() -> {
+                    try {
+                        samples.add(send(client.orderRequest(path, member, eventId, config.quantity())));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return dropped;
+    }
+
+    private Sample send(HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            FlashSaleClient.Outcome outcome = client.outcomeOf(client.sendRaw(request));
+            return new Sample(System.nanoTime() - start, outcome.label(), outcome.success());
+        } catch (HttpTimeoutException e) {
+            return new Sample(System.nanoTime() - start, "timeout", false);
+        } catch (IOException e) {
+            return new Sample(System.nanoTime() - start, e.getClass().getSimpleName(), false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Sample(System.nanoTime() - start, "interrupted", false);
+        }
+    }
+
+    /**
+     * Oversell = more units accepted / persisted than the event stock, or a negative stock in either store.
+     * MQ orders are written by the consumer, so wait for them to land first.
+     */
+    private StockCheck checkStock(OrderPath path, String productId, String productName, String eventId, long successes)
+            throws InterruptedException {
+        int stock = config.stock();
+        int quantity = config.quantity();
+        long orders = client.countOrders(productName);
+        if (path.asynchronous()) {
+            long drainDeadline = System.nanoTime() + config.drainTimeout().toNanos();
+            while (orders < successes && System.nanoTime() < drainDeadline) {
+                TimeUnit.MILLISECONDS.sleep(DRAIN_POLL_MS);
+                orders = client.countOrders(productName);
+            }
+        }
+        int dbStock = client.eventStock(eventId);
+        Integer redisStock = client.redisStock(productId);
+        long unitsAccepted = successes * quantity;
+
+        boolean oversold = unitsAccepted > stock || orders * quantity > stock || dbStock < 0
+                || (redisStock != null && redisStock < 0);
+        List<String> notes = new ArrayList<>();
+        if (orders != successes) {
+            notes.add(successes + " orders accepted but " + orders + " in MySQL"
+                    + (path.asynchronous() ? " after the drain timeout" : ""));
+        }
+        if (path.deductsMysql() && dbStock != stock - orders * quantity) {
+            notes.add("MySQL stock " + dbStock + ", expected " + (stock - orders * quantity) + " from the persisted orders");
+        }
+        if (path.deductsRedis()) {
+            if (redisStock == null) {
+                notes.add("product is not preheated in Redis");
+            } else if (redisStock != stock - unitsAccepted) {
+                notes.add("Redis stock " + redisStock + ", expected " + (stock - unitsAccepted) + " from the accepted orders");
+            }
+        }
+        return new StockCheck(stock, unitsAccepted, orders, dbStock, redisStock, oversold, notes);
+    }
+}
@@ -0,0 +1,115 @@
+package com.flashsale.loadtest;
+
+import com.flashsale.loadtest.FlashSaleClient.Member;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @description Flash-sale load generator: seeds members and one fresh event per path, preheats Redis once,
+ * fires the spike profile at each path in turn and reports throughput / latency / error mix / oversell.
+ * Exit code 1 when any path oversold.
+ * @author Yang-Hsu
+ */
+public class LoadTestApplication {
+
+    private static final int SEED_CONCURRENCY = 32;
+
+    private record SeededEvent(String productId, String productName, String eventId) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        FlashSaleClient client = new FlashSaleClient(config.baseUrl(), config.requestTimeout());
+
+        // 1. Members (shared by all paths) and one product + event per path
+        log("Seeding %d members against %s", config.users(), config.baseUrl());
+        List<Member> members = seed(config.users(), i -> client.registerMember(
+                "lt-" + runId + "-" + i + "@loadtest.local", config.password(), "LoadTest " + i));
+        Map<OrderPath, SeededEvent> events = new LinkedHashMap<>();
+        for (OrderPath path : config.paths()) {
+            String productName = "LoadTest " + runId + " " + path;
+            String productId = client.createProduct(productName);
+            String eventId = client.createEvent(productId, config.stock(), config.maxPerMember());
+            events.put(path, new SeededEvent(productId, productName, eventId));
+        }
+
+        // 2. Preheat once: preload-today rebuilds today's products, every run event must exist before it
+        client.preloadToday();
+
+        // 3. Each path in turn
+        LoadRunner runner = new LoadRunner(client, config);
+        List<PathReport> reports = new ArrayList<>();
+        for (Map.Entry<OrderPath, SeededEvent> entry : events.entrySet()) {
+            OrderPath path = entry.getKey();
+            SeededEvent event = entry.getValue();
+            List<Member> users = members;
+            if (path.authenticated()) {
+                // access tokens are short-lived, log in right before the run
+                log("Logging in %d members", members.size());
+                users = seed(members.size(), i -> members.get(i).withAccessCookie(
+                        client.login(members.get(i).email(), config.password())));
+            }
+            log("Running %s on %s (event %s)", config.profile(), path, event.eventId());
+            reports.add(runner.run(path, event.productId(), event.productName(), event.eventId(), users));
+        }
+
+        RunReport report = new RunReport(runId, LocalDateTime.now(), config.baseUrl(), config.profile(), config.users(),
+                config.stock(), config.rps(), config.duration(), config.quantity(), reports);
+        report.print(System.out);
+        report.write(config.output());
+        log("Report written to %s", config.output().toAbsolutePath());
+        System.exit(report.oversold() ? 1 : 0);
+    }
+
+    /**
+     * Seeding calls with bounded concurrency, results in index order
+     */
+    private static List<Member> seed(int count, IndexedCall call) throws Exception {
+        Semaphore permits = new Semaphore(SEED_CONCURRENCY);
+        List<Future<Member>> futures = new ArrayList<>(count);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return call.apply(index);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        List<Member> members = new ArrayList<>(count);
+        for (Future<Member> future : futures) {
+            members.add(future.get());
+        }
+        return members;
+    }
+
+    @FunctionalInterface
+    private interface IndexedCall {
+        Member apply(int index);
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf("[loadtest] " + format + "%n", args);
+    }
+}
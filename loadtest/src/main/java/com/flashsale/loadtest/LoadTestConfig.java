@@ -0,0 +1,86 @@
+package com.flashsale.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * @description Command line options (--key=value), defaults target the local docker-compose stack + backend on :8080
+ * @author Yang-Hsu
+ */
+public record LoadTestConfig(String baseUrl, List<OrderPath> paths, SpikeProfile profile, int users, int stock,
+                             double rps, Duration duration, int quantity, int maxPerMember, Duration requestTimeout,
+                             Duration drainTimeout, String password, Path output) {
+
+    public static final String USAGE = """
+            Options (--key=value):
+              --baseUrl=http://localhost:8080   backend under test
+              --paths=db,redis,mq               order paths to run, one fresh event each
+              --profile=burst                   burst | ramp | sustained
+              --users=500                       virtual users (seeded members) = max concurrent requests
+              --stock=1000                      event stock per path
+              --rps=2000                        peak arrival rate (ramp / sustained)
+              --duration=30s                    length of each run
+              --quantity=1                      units per order
+              --maxPerMember=0                  event purchase limit, 0 = none
+              --timeout=10s                     per-request timeout
+              --drain=60s                       max wait for MQ orders to land in MySQL
+              --password=LoadTest123!           password of the seeded members
+              --output=target/loadtest-report.json
+            """;
+
+    public static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unrecognised argument: " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        LoadTestConfig config = new LoadTestConfig(
+                stripTrailingSlash(options.getOrDefault("baseUrl", "http://localhost:8080")),
+                Arrays.stream(options.getOrDefault("paths", "db,redis,mq").split(","))
+                        .map(path -> OrderPath.valueOf(path.trim().toUpperCase(Locale.ROOT))).toList(),
+                SpikeProfile.valueOf(options.getOrDefault("profile", "burst").toUpperCase(Locale.ROOT)),
+                Integer.parseInt(options.getOrDefault("users", "500")),
+                Integer.parseInt(options.getOrDefault("stock", "1000")),
+                Double.parseDouble(options.getOrDefault("rps", "2000")),
+                parseDuration(options.getOrDefault("duration", "30s")),
+                Integer.parseInt(options.getOrDefault("quantity", "1")),
+                Integer.parseInt(options.getOrDefault("maxPerMember", "0")),
+                parseDuration(options.getOrDefault("timeout", "10s")),
+                parseDuration(options.getOrDefault("drain", "60s")),
+                options.getOrDefault("password", "LoadTest123!"),
+                Path.of(options.getOrDefault("output", "target/loadtest-report.json")));
+        if (config.users() <= 0 || config.stock() <= 0 || config.quantity() <= 0 || config.rps() <= 0) {
+            throw new IllegalArgumentException("users, stock, quantity and rps must be positive");
+        }
+        return config;
+    }
+
+    /**
+     * 30s / 500ms / 2m, a bare number is seconds
+     */
+    static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
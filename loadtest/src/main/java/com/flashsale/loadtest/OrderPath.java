@@ -0,0 +1,51 @@
+package com.flashsale.loadtest;
+
+/**
+ * @description The three order paths of the backend and which stock store each one deducts.
+ * db / redis 是 TestController 的測試端點 (body 帶 memberId)；mq 是正式路徑 (JWT cookie，訂單由 consumer 非同步落盤)。
+ * @author Yang-Hsu
+ */
+public enum OrderPath {
+
+    DB("/api/test/ordersDB", false, false, true),
+    REDIS("/api/test/ordersRedis", false, true, false),
+    MQ("/api/client/orders", true, true, true);
+
+    private final String endpoint;
+    private final boolean authenticated;
+    private final boolean deductsRedis;
+    private final boolean deductsMysql;
+
+    OrderPath(String endpoint, boolean authenticated, boolean deductsRedis, boolean deductsMysql) {
+        this.endpoint = endpoint;
+        this.authenticated = authenticated;
+        this.deductsRedis = deductsRedis;
+        this.deductsMysql = deductsMysql;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * memberId comes from the access_token cookie instead of the request body
+     */
+    public boolean authenticated() {
+        return authenticated;
+    }
+
+    public boolean deductsRedis() {
+        return deductsRedis;
+    }
+
+    public boolean deductsMysql() {
+        return deductsMysql;
+    }
+
+    /**
+     * Orders are written by the MQ consumer after the HTTP response
+     */
+    public boolean asynchronous() {
+        return this == MQ;
+    }
+}
@@ -0,0 +1,62 @@
+package com.flashsale.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @description Result of one path: throughput, latency percentiles (nearest rank), error mix and the stock check.
+ * 延遲只計算實際送出的請求；open model 因並行上限而未送出的請求記在 dropped。
+ * @author Yang-Hsu
+ */
+public record PathReport(OrderPath path, String eventId, long requests, long successes, long dropped,
+                         double elapsedSeconds, double throughput, double p50Ms, double p99Ms, double p999Ms,
+                         double maxMs, Map<String, Long> errors, StockCheck stockCheck) {
+
+    /**
+     * One order request as seen by the client
+     */
+    public record Sample(long latencyNanos, String outcome, boolean success) {
+    }
+
+    /**
+     * Post-run read-back. oversold is the hard failure, notes are store mismatches worth a look
+     */
+    public record StockCheck(int stock, long unitsAccepted, long ordersInDb, int dbStock, Integer redisStock,
+                             boolean oversold, List<String> notes) {
+    }
+
+    public static PathReport of(OrderPath path, String eventId, List<Sample> samples, long dropped,
+                                long elapsedNanos, StockCheck stockCheck) {
+        long[] latencies = new long[samples.size()];
+        long successes = 0;
+        Map<String, Long> errors = new TreeMap<>();
+        for (int i = 0; i < latencies.length; i++) {
+            Sample sample = samples.get(i);
+            latencies[i] = sample.latencyNanos();
+            if (sample.success()) {
+                successes++;
+            } else {
+                errors.merge(sample.outcome(), 1L, Long::sum);
+            }
+        }
+        Arrays.sort(latencies);
+        double elapsedSeconds = elapsedNanos / 1e9;
+        return new PathReport(path, eventId, latencies.length, successes, dropped, elapsedSeconds,
+                elapsedSeconds > 0 ? latencies.length / elapsedSeconds : 0,
+                percentileMs(latencies, 0.50), percentileMs(latencies, 0.99), percentileMs(latencies, 0.999),
+                latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0, errors, stockCheck);
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanos, in ms
+     */
+    static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
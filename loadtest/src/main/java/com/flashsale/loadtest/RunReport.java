@@ -0,0 +1,68 @@
+package com.flashsale.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @description Whole run: the parameters and one PathReport per path, printed as a table and written as JSON
+ * @author Yang-Hsu
+ */
+public record RunReport(String runId, LocalDateTime startedAt, String baseUrl, SpikeProfile profile, int users,
+                        int stock, double rps, Duration duration, int quantity, List<PathReport> paths) {
+
+    public boolean oversold() {
+        return paths.stream().anyMatch(path -> path.stockCheck().oversold());
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%nRun %s  profile=%s users=%d stock=%d rps=%.0f duration=%ss quantity=%d%n",
+                runId, profile, users, stock, rps, duration.toSeconds(), quantity);
+        out.printf("%-6s %9s %9s %8s %9s %9s %9s %9s %9s  %s%n",
+                "path", "requests", "success", "dropped", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "oversell");
+        for (PathReport path : paths) {
+            out.printf("%-6s %9d %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    path.path(), path.requests(), path.successes(), path.dropped(), path.throughput(),
+                    path.p50Ms(), path.p99Ms(), path.p999Ms(), path.maxMs(),
+                    path.stockCheck().oversold() ? "OVERSOLD" : "ok");
+        }
+        for (PathReport path : paths) {
+            PathReport.StockCheck check = path.stockCheck();
+            out.printf("%n[%s] event %s%n", path.path(), path.eventId());
+            out.printf("  errors: %s%n", path.errors().isEmpty() ? "none" : formatErrors(path.errors()));
+            out.printf("  stock %d, units accepted %d, orders in MySQL %d, DB stock %d, Redis stock %s%n",
+                    check.stock(), check.unitsAccepted(), check.ordersInDb(), check.dbStock(),
+                    check.redisStock() != null ? check.redisStock() : "-");
+            check.notes().forEach(note -> out.printf("  note: %s%n", note));
+        }
+    }
+
+    public void write(Path output) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.writeValue(output.toFile(), this);
+    }
+
+    private static String formatErrors(Map<String, Long> errors) {
+        return errors.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(", "));
+    }
+}
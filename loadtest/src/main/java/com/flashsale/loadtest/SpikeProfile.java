@@ -0,0 +1,44 @@
+package com.flashsale.loadtest;
+
+import java.time.Duration;
+
+/**
+ * @description Traffic shape of one run.
+ * BURST：所有虛擬使用者同時起跑，連續送單直到 duration 結束 (closed loop)；
+ * RAMP：到達率由 0 線性升到 rps；SUSTAINED：固定 rps。後兩者為 open model，並行數上限為 users。
+ * @author Yang-Hsu
+ */
+public enum SpikeProfile {
+
+    BURST,
+    RAMP,
+    SUSTAINED;
+
+    public boolean closedLoop() {
+        return this == BURST;
+    }
+
+    /**
+     * Number of requests an open-model profile schedules over the run
+     */
+    public long totalRequests(double rps, Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        return switch (this) {
+            case BURST -> 0L; // closed loop, bounded by time only
+            case RAMP -> (long) (rps * seconds / 2); // area under 0 -> rps
+            case SUSTAINED -> (long) (rps * seconds);
+        };
+    }
+
+    /**
+     * Send time of the k-th request (0-based) relative to the start of the run
+     */
+    public long sendOffsetNanos(long k, double rps, Duration duration) {
+        return switch (this) {
+            case BURST -> 0L;
+            // rate(t) = rps * t / D  =>  requests sent by t = rps * t^2 / 2D  =>  t_k = sqrt(2 D k / rps)
+            case RAMP -> (long) (Math.sqrt(2.0 * (duration.toNanos() / 1e9) * k / rps) * 1e9);
+            case SUSTAINED -> (long) (k / rps * 1e9);
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.flashsale.loadtest;
+
+import com.flashsale.loadtest.PathReport.Sample;
+import com.flashsale.loadtest.PathReport.StockCheck;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PathReportTest {
+
+    @Test
+    @DisplayName("百分位數採 nearest rank，錯誤依 outcome 分類計數")
+    void of_Should_Compute_Percentiles_And_Error_Mix() {
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            boolean success = i <= 990;
+            samples.add(new Sample(i * 1_000_000L, success ? "success" : (i % 2 == 0 ? "stock_sold_out" : "timeout"), success));
+        }
+        StockCheck check = new StockCheck(1000, 990, 990, 10, 10, false, List.of());
+
+        PathReport report = PathReport.of(OrderPath.REDIS, "e1", samples, 3, Duration.ofSeconds(2).toNanos(), check);
+
+        assertEquals(1000, report.requests());
+        assertEquals(990, report.successes());
+        assertEquals(3, report.dropped());
+        assertEquals(500.0, report.throughput());
+        assertEquals(500.0, report.p50Ms());
+        assertEquals(990.0, report.p99Ms());
+        assertEquals(999.0, report.p999Ms());
+        assertEquals(1000.0, report.maxMs());
+        assertEquals(Map.of("stock_sold_out", 5L, "timeout", 5L), report.errors());
+    }
+
+    @Test
+    @DisplayName("時間區段可用 ms / s / m 或純秒數")
+    void parseDuration_Should_Accept_Units() {
+        assertEquals(Duration.ofMillis(500), LoadTestConfig.parseDuration("500ms"));
+        assertEquals(Duration.ofSeconds(30), LoadTestConfig.parseDuration("30s"));
+        assertEquals(Duration.ofMinutes(2), LoadTestConfig.parseDuration("2m"));
+        assertEquals(Duration.ofSeconds(45), LoadTestConfig.parseDuration("45"));
+    }
+}